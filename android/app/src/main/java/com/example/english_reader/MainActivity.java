@@ -22,20 +22,28 @@ import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.example.english_reader.ingest.BookManifest;
+import com.example.english_reader.ingest.IngestPipeline;
+import com.example.english_reader.storage.CachePurger;
 import com.example.english_reader.storage.FileCacheManager;
 import com.example.english_reader.permissions.PermissionHandler;
 import com.example.english_reader.notifications.NotificationHelper;
 
 public class MainActivity extends FlutterActivity {
+    private static final String TAG = "MainActivity";
     private static final String CHANNEL = "com.example.english_reader/native";
     private static final int PICK_IMAGE_REQUEST = 1001;
     private static final int TAKE_PHOTO_REQUEST = 1002;
     private static final int PICK_FILE_REQUEST = 1003;
+    private static final int MAX_CONCURRENT_IMPORTS = 2;
+    private static final int MAX_PENDING_IMPORTS = 8;
     
+    private MethodChannel channel;
     private MethodChannel.Result pendingResult;
     private PermissionHandler permissionHandler;
     private FileCacheManager fileCacheManager;
     private NotificationHelper notificationHelper;
+    private IngestPipeline ingestPipeline;
 
     @Override
     public void configureFlutterEngine(@NonNull FlutterEngine flutterEngine) {
@@ -45,9 +53,11 @@ public class MainActivity extends FlutterActivity {
         permissionHandler = new PermissionHandler(this);
         fileCacheManager = new FileCacheManager(this);
         notificationHelper = new NotificationHelper(this);
+        ingestPipeline = new IngestPipeline(MAX_CONCURRENT_IMPORTS, MAX_PENDING_IMPORTS);
         
         // 设置方法通道
-        new MethodChannel(flutterEngine.getDartExecutor().getBinaryMessenger(), CHANNEL)
+        channel = new MethodChannel(flutterEngine.getDartExecutor().getBinaryMessenger(), CHANNEL);
+        channel
             .setMethodCallHandler(
                 (call, result) -> {
                     // 处理来自Flutter的方法调用
@@ -58,6 +68,9 @@ public class MainActivity extends FlutterActivity {
                         case "takePhoto":
                             takePhoto(result);
                             break;
+                        case "pickFile":
+                            pickFile(result);
+                            break;
                         case "saveFile":
                             String content = call.argument("content");
                             String fileName = call.argument("fileName");
@@ -67,6 +80,28 @@ public class MainActivity extends FlutterActivity {
                             String readFileName = call.argument("fileName");
                             readFile(readFileName, result);
                             break;
+                        case "readFileRange":
+                            String rangeFileName = call.argument("fileName");
+                            Number offset = call.argument("offset");
+                            Integer length = call.argument("length");
+                            readFileRange(rangeFileName, offset, length, result);
+                            break;
+                        case "setStorageEncryption":
+                            Boolean enabled = call.argument("enabled");
+                            setStorageEncryption(enabled != null && enabled, result);
+                            break;
+                        case "isStorageEncryptionEnabled":
+                            result.success(fileCacheManager.isEncryptionEnabled());
+                            break;
+                        case "importBook":
+                            String bookFileName = call.argument("fileName");
+                            importBook(bookFileName, result);
+                            break;
+                        case "clearCache":
+                            Number maxAgeMillis = call.argument("maxAgeMillis");
+                            Number maxSizeBytes = call.argument("maxSizeBytes");
+                            clearCache(maxAgeMillis, maxSizeBytes, result);
+                            break;
                         case "showNotification":
                             String title = call.argument("title");
                             String message = call.argument("message");
@@ -96,6 +131,17 @@ public class MainActivity extends FlutterActivity {
         startActivityForResult(intent, PICK_IMAGE_REQUEST);
     }
 
+    // 选择要导入的书籍文件，选择后在后台开始导入
+    private void pickFile(MethodChannel.Result result) {
+        pendingResult = result;
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES, new String[] {
+                "text/plain", "text/html", "application/xhtml+xml", "application/epub+zip"});
+        startActivityForResult(intent, PICK_FILE_REQUEST);
+    }
+
     // 拍照
     private void takePhoto(MethodChannel.Result result) {
         if (!permissionHandler.checkCameraPermission()) {
@@ -143,6 +189,127 @@ public class MainActivity extends FlutterActivity {
         }
     }
 
+    // 读取文件指定范围
+    private void readFileRange(String fileName, Number offset, Integer length, MethodChannel.Result result) {
+        if (offset == null || length == null) {
+            result.error("INVALID_ARGUMENT", "offset and length are required", null);
+            return;
+        }
+        if (offset.longValue() < 0 || length < 0) {
+            result.error("INVALID_ARGUMENT", "offset and length must not be negative", null);
+            return;
+        }
+        try {
+            byte[] bytes = fileCacheManager.readFileRange(fileName, offset.longValue(), length);
+            result.success(bytes);
+        } catch (IOException e) {
+            result.error("READ_ERROR", "Error reading file: " + e.getMessage(), null);
+        }
+    }
+
+    // 开启或关闭加密存储
+    private void setStorageEncryption(boolean enabled, MethodChannel.Result result) {
+        if (fileCacheManager.setEncryptionEnabled(enabled)) {
+            result.success(true);
+        } else {
+            result.error("UNSUPPORTED", "Encrypted storage is not supported on this device", null);
+        }
+    }
+
+    // 导入书籍，返回章节清单（JSON）
+    private void importBook(String fileName, MethodChannel.Result result) {
+        if (fileName == null || !fileCacheManager.fileExists(fileName)) {
+            result.error("NOT_FOUND", "File not found: " + fileName, null);
+            return;
+        }
+        String manifestName = IngestPipeline.manifestName(fileName);
+        if (!ingestPipeline.isRunning(fileName) && fileCacheManager.fileExists(manifestName)) {
+            try {
+                result.success(fileCacheManager.readTextFile(manifestName));
+                return;
+            } catch (IOException e) {
+                Log.w(TAG, "Error reading manifest, importing again: " + e.getMessage());
+            }
+        }
+        ingestPipeline.submit(fileCacheManager.getFileStore(), fileName, new IngestPipeline.Callback() {
+            @Override
+            public void onComplete(BookManifest manifest) {
+                runOnUiThread(() -> result.success(manifest.toJson()));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> result.error("IMPORT_ERROR", "Error importing book: " + e.getMessage(), null));
+            }
+        });
+    }
+
+    // 在后台预先导入刚选择的文件，打开时即可直接阅读
+    private void preloadBook(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        File file = new File(filePath);
+        if (!getFilesDir().equals(file.getParentFile())) {
+            return;
+        }
+        ingestPipeline.submit(fileCacheManager.getFileStore(), file.getName(), new IngestPipeline.Callback() {
+            @Override
+            public void onComplete(BookManifest manifest) {
+                Log.d(TAG, "Imported " + manifest.getSource() + ": " + manifest.getChapters().size() + " chapters");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error importing " + filePath + ": " + e.getMessage());
+            }
+        });
+    }
+
+    // 清除缓存，可按时间或大小部分清除，返回实际释放的字节数
+    private void clearCache(Number maxAgeMillis, Number maxSizeBytes, MethodChannel.Result result) {
+        CachePurger.Request request;
+        if (maxAgeMillis != null) {
+            request = CachePurger.Request.olderThan(maxAgeMillis.longValue());
+            if (maxSizeBytes != null) {
+                request = request.andTrimTo(maxSizeBytes.longValue());
+            }
+        } else if (maxSizeBytes != null) {
+            request = CachePurger.Request.trimTo(maxSizeBytes.longValue());
+        } else {
+            request = CachePurger.Request.all();
+        }
+        if (!request.isDeleteAll() && !fileCacheManager.supportsPartialPurge()) {
+            result.error("UNSUPPORTED", "Partial cache purge requires Android 8.0 or above", null);
+            return;
+        }
+
+        fileCacheManager.purgeCache(request, new FileCacheManager.PurgeCallback() {
+            @Override
+            public void onProgress(long filesDeleted, long bytesFreed) {
+                Map<String, Object> progress = new HashMap<>();
+                progress.put("filesDeleted", filesDeleted);
+                progress.put("bytesFreed", bytesFreed);
+                runOnUiThread(() -> channel.invokeMethod("onCacheClearProgress", progress));
+            }
+
+            @Override
+            public void onComplete(CachePurger.Result purgeResult) {
+                Map<String, Object> summary = new HashMap<>();
+                summary.put("filesDeleted", purgeResult.getFilesDeleted());
+                summary.put("directoriesDeleted", purgeResult.getDirectoriesDeleted());
+                summary.put("bytesFreed", purgeResult.getBytesFreed());
+                summary.put("failures", purgeResult.getFailures());
+                runOnUiThread(() -> result.success(summary));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                runOnUiThread(() -> result.error("CLEAR_CACHE_ERROR", "Error clearing cache: " + e.getMessage(), null));
+            }
+        });
+    }
+
     // 显示通知
     private void showNotification(String title, String message, MethodChannel.Result result) {
         notificationHelper.showNotification(title, message);
@@ -211,7 +378,8 @@ public class MainActivity extends FlutterActivity {
                 case PICK_FILE_REQUEST:
                     Uri selectedFileUri = data.getData();
                     if (selectedFileUri != null) {
-                        String filePath = fileCacheManager.getPathFromUri(selectedFileUri);
+                        String filePath = fileCacheManager.copyBookFromUri(selectedFileUri);
+                        preloadBook(filePath);
                         pendingResult.success(filePath);
                     } else {
                         pendingResult.error("SELECTION_CANCELED", "File selection was canceled", null);
@@ -235,4 +403,12 @@ public class MainActivity extends FlutterActivity {
             pendingResult = null;
         }
     }
+
+    @Override
+    protected void onDestroy() {
+        if (ingestPipeline != null) {
+            ingestPipeline.shutdown();
+        }
+        super.onDestroy();
+    }
 }
\ No newline at end of file
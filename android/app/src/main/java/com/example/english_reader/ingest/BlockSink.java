@@ -0,0 +1,8 @@
+package com.example.english_reader.ingest;
+
+/**
+ * 接收解析出的文本块，队列已满时阻塞
+ */
+interface BlockSink {
+    void accept(TextBlock block) throws InterruptedException;
+}
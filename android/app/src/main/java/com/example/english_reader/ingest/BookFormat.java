@@ -0,0 +1,69 @@
+package com.example.english_reader.ingest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 支持导入的文档格式
+ */
+public enum BookFormat {
+    TXT,
+    HTML,
+    EPUB;
+
+    /** 格式检测需要读取的文件头长度 */
+    static final int SNIFF_LENGTH = 512;
+
+    /**
+     * 根据文件头和文件名判断格式，不支持的格式返回null
+     */
+    static BookFormat detect(byte[] head, int length, String fileName) {
+        if (length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+            return EPUB;
+        }
+        if (length >= 4 && head[0] == '%' && head[1] == 'P' && head[2] == 'D' && head[3] == 'F') {
+            return null;
+        }
+        if (!hasUtf16Bom(head, length)) {
+            for (int i = 0; i < length; i++) {
+                if (head[i] == 0) {
+                    // 二进制文件
+                    return null;
+                }
+            }
+        }
+
+        String start = new String(head, 0, length, StandardCharsets.ISO_8859_1)
+                .trim().toLowerCase(Locale.ROOT);
+        if (start.startsWith("\u00ef\u00bb\u00bf")) {
+            start = start.substring(3).trim();
+        }
+        if (start.startsWith("<!doctype html") || start.startsWith("<html")
+                || (start.startsWith("<?xml") && start.contains("<html"))) {
+            return HTML;
+        }
+
+        String name = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".html") || name.endsWith(".htm") || name.endsWith(".xhtml")) {
+            return HTML;
+        }
+        return TXT;
+    }
+
+    BookParser newParser() {
+        switch (this) {
+            case HTML:
+                return new HtmlParser();
+            case EPUB:
+                return new EpubParser();
+            case TXT:
+            default:
+                return new TxtParser();
+        }
+    }
+
+    private static boolean hasUtf16Bom(byte[] head, int length) {
+        return length >= 2 && ((head[0] == (byte) 0xFF && head[1] == (byte) 0xFE)
+                || (head[0] == (byte) 0xFE && head[1] == (byte) 0xFF));
+    }
+}
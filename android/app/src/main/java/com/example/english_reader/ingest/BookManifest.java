@@ -0,0 +1,136 @@
+package com.example.english_reader.ingest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 导入后生成的章节清单：章节标题及其在章节文本文件中的字节偏移和长度
+ */
+public class BookManifest {
+    public static final int VERSION = 1;
+
+    private final String source;
+    private final String content;
+    private final BookFormat format;
+    private final String title;
+    private final List<Chapter> chapters;
+
+    BookManifest(String source, String content, BookFormat format, String title, List<Chapter> chapters) {
+        this.source = source;
+        this.content = content;
+        this.format = format;
+        this.title = title;
+        this.chapters = Collections.unmodifiableList(new ArrayList<>(chapters));
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public BookFormat getFormat() {
+        return format;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public List<Chapter> getChapters() {
+        return chapters;
+    }
+
+    /**
+     * 序列化为JSON，写在原文件旁边，由Flutter端直接解析
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"version\":").append(VERSION)
+                .append(",\"source\":");
+        appendString(json, source);
+        json.append(",\"content\":");
+        appendString(json, content);
+        json.append(",\"format\":");
+        appendString(json, format.name());
+        json.append(",\"title\":");
+        appendString(json, title);
+        json.append(",\"chapters\":[");
+        for (int i = 0; i < chapters.size(); i++) {
+            Chapter chapter = chapters.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"title\":");
+            appendString(json, chapter.getTitle());
+            json.append(",\"offset\":").append(chapter.getOffset())
+                    .append(",\"length\":").append(chapter.getLength())
+                    .append('}');
+        }
+        json.append("]}");
+        return json.toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                    break;
+            }
+        }
+        json.append('"');
+    }
+
+    public static class Chapter {
+        private final String title;
+        private final long offset;
+        private final long length;
+
+        Chapter(String title, long offset, long length) {
+            this.title = title;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.english_reader.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 流式解析文档，把文本块依次交给sink，不把整个文件读入内存
+ */
+interface BookParser {
+    /** 单个段落的最大字符数，超过时在空白处拆分 */
+    int MAX_PARAGRAPH_CHARS = 16 * 1024;
+
+    void parse(InputStream in, BlockSink sink) throws IOException, InterruptedException;
+
+    /**
+     * 解析本地明文文件，需要随机访问的格式（EPUB）覆盖此方法
+     */
+    default void parse(File file, BlockSink sink) throws IOException, InterruptedException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            parse(in, sink);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.english_reader.ingest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 写入阶段：规范化文本块、切分章节，并把章节正文顺序写入输出流，同时记录每章的字节偏移
+ */
+final class ChapterWriter {
+    /** 单个章节的最大字节数，超过后在段落边界拆分为续章，保证阅读时每次加载的内容有限 */
+    static final int MAX_CHAPTER_BYTES = 512 * 1024;
+    private static final byte[] PARAGRAPH_SEPARATOR = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final OutputStream out;
+    private final List<BookManifest.Chapter> chapters = new ArrayList<>();
+    private String bookTitle;
+    /** 为下一章收集的标题 */
+    private String chapterTitle;
+    /** 当前章节的标题，续章沿用；第一个标题之前的无标题正文在结束时才确定 */
+    private String baseTitle;
+    /** 还没有遇到章节标题或文档片段 */
+    private boolean leading = true;
+    private int chapterNumber;
+    private int chapterPart;
+    private long chapterStart;
+    private long offset;
+
+    ChapterWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    void accept(TextBlock block) throws IOException {
+        switch (block.type) {
+            case TITLE:
+                if (bookTitle == null) {
+                    String title = TextNormalizer.normalize(block.text);
+                    bookTitle = title.isEmpty() ? null : title;
+                }
+                break;
+            case SECTION:
+                if (hasContent()) {
+                    closeChapter(true);
+                }
+                startChapter();
+                leading = false;
+                break;
+            case HEADING:
+                String heading = TextNormalizer.normalize(block.text);
+                if (heading.isEmpty()) {
+                    break;
+                }
+                if (hasContent()) {
+                    closeChapter(true);
+                    startChapter();
+                }
+                leading = false;
+                // 连续的多个标题（如"Chapter 1"和章节名）合并为同一章的标题
+                chapterTitle = chapterTitle == null ? heading : chapterTitle + " " + heading;
+                break;
+            case PARAGRAPH:
+                String paragraph = TextNormalizer.normalize(block.text);
+                if (paragraph.isEmpty()) {
+                    break;
+                }
+                if (offset - chapterStart >= MAX_CHAPTER_BYTES) {
+                    closeChapter(false);
+                    chapterPart++;
+                }
+                if (!hasContent() && chapterPart == 0) {
+                    openChapter();
+                }
+                byte[] bytes = paragraph.getBytes(StandardCharsets.UTF_8);
+                out.write(bytes);
+                out.write(PARAGRAPH_SEPARATOR);
+                offset += bytes.length + PARAGRAPH_SEPARATOR.length;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 结束写入，返回所有章节
+     */
+    List<BookManifest.Chapter> finish() throws IOException {
+        if (hasContent()) {
+            closeChapter(false);
+        }
+        out.flush();
+        return chapters;
+    }
+
+    String getBookTitle() {
+        return bookTitle;
+    }
+
+    private boolean hasContent() {
+        return offset > chapterStart;
+    }
+
+    private void startChapter() {
+        chapterTitle = null;
+        baseTitle = null;
+        chapterPart = 0;
+    }
+
+    /**
+     * 写入新章节的第一段时确定标题，之后拆分出的续章都使用同一标题
+     */
+    private void openChapter() {
+        chapterNumber++;
+        if (chapterTitle != null) {
+            baseTitle = chapterTitle;
+        } else if (!leading) {
+            baseTitle = "Chapter " + chapterNumber;
+        }
+    }
+
+    /**
+     * @param beforeHeading 后面紧接着新的章节标题或文档片段
+     */
+    private void closeChapter(boolean beforeHeading) {
+        if (baseTitle == null) {
+            // 第一个标题之前的正文作为前言，不占用章节序号；全书没有标题时才是第1章
+            if (beforeHeading) {
+                baseTitle = bookTitle != null ? bookTitle : "Preface";
+                chapterNumber--;
+            } else {
+                baseTitle = "Chapter " + chapterNumber;
+            }
+        }
+        String title = baseTitle;
+        if (chapterPart > 0) {
+            title = title + " (" + (chapterPart + 1) + ")";
+        }
+        chapters.add(new BookManifest.Chapter(title, chapterStart, offset - chapterStart));
+        chapterStart = offset;
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.english_reader.ingest;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 根据文件头选择文本编码：优先使用BOM，其次是HTML/XML中声明的编码；
+ * 都没有时检查文件头是否为合法的UTF-8，不是则按GB18030（兼容GBK和GB2312）解码
+ */
+final class CharsetSniffer {
+    /** 用于判断编码的文件头长度 */
+    static final int SNIFF_LENGTH = 8192;
+    static final Charset GB18030 = Charset.forName("GB18030");
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta\\b[^>]*?charset\\s*=\\s*[\"']?\\s*([a-z0-9_.:-]+)");
+    private static final Pattern XML_ENCODING = Pattern.compile(
+            "<\\?xml\\b[^>]*?encoding\\s*=\\s*[\"']([a-z0-9_.:-]+)");
+
+    private CharsetSniffer() {
+    }
+
+    /**
+     * 按检测到的编码打开Reader，并跳过BOM
+     *
+     * @param markup 是否为HTML/XHTML，是则识别文件头中声明的编码
+     */
+    static Reader openReader(InputStream in, boolean markup) throws IOException {
+        InputStream input = in.markSupported() ? in : new BufferedInputStream(in, SNIFF_LENGTH);
+        byte[] head = new byte[SNIFF_LENGTH];
+        input.mark(SNIFF_LENGTH);
+        int length = 0;
+        int n;
+        while (length < head.length && (n = input.read(head, length, head.length - length)) != -1) {
+            length += n;
+        }
+        input.reset();
+
+        Charset charset;
+        long bomLength = 0;
+        if (startsWith(head, length, 0xEF, 0xBB, 0xBF)) {
+            charset = StandardCharsets.UTF_8;
+            bomLength = 3;
+        } else if (startsWith(head, length, 0xFF, 0xFE)) {
+            charset = StandardCharsets.UTF_16LE;
+            bomLength = 2;
+        } else if (startsWith(head, length, 0xFE, 0xFF)) {
+            charset = StandardCharsets.UTF_16BE;
+            bomLength = 2;
+        } else {
+            charset = markup ? declaredCharset(head, length) : null;
+            if (charset == null) {
+                charset = isUtf8(head, length, length < SNIFF_LENGTH) ? StandardCharsets.UTF_8 : GB18030;
+            }
+        }
+        while (bomLength > 0) {
+            bomLength -= input.skip(bomLength);
+        }
+        return new InputStreamReader(input, charset);
+    }
+
+    /**
+     * 从<meta charset>、<meta http-equiv content="...charset=">或<?xml encoding=?>中读取声明的编码，
+     * 没有声明或不支持时返回null
+     */
+    static Charset declaredCharset(byte[] head, int length) {
+        String start = new String(head, 0, length, StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+        Matcher matcher = XML_ENCODING.matcher(start);
+        String name = matcher.find() ? matcher.group(1) : null;
+        if (name == null) {
+            matcher = META_CHARSET.matcher(start);
+            name = matcher.find() ? matcher.group(1) : null;
+        }
+        if (name == null || name.startsWith("utf-16")) {
+            // 没有BOM时声明为UTF-16不可信，文件头能按ASCII读出声明本身就说明不是UTF-16
+            return null;
+        }
+        if (name.equals("gb2312") || name.equals("gbk") || name.equals("x-gbk")) {
+            // 标为GB2312/GBK的文件常含有超出其范围的字符，统一用兼容的GB18030解码
+            return GB18030;
+        }
+        try {
+            return Charset.forName(name);
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 检查字节是否为合法的UTF-8；未读到文件末尾时允许最后一个字符不完整
+     */
+    static boolean isUtf8(byte[] bytes, int length, boolean endOfInput) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(length);
+        CoderResult result = decoder.decode(ByteBuffer.wrap(bytes, 0, length), out, endOfInput);
+        return !result.isError();
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((head[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
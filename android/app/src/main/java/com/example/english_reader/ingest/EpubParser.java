@@ -0,0 +1,295 @@
+package com.example.english_reader.ingest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * EPUB解析：用ZipFile通过中央目录随机访问条目，按OPF中spine的顺序把每个xhtml文件作为一个片段交给HtmlParser。
+ * 跳过非线性条目、目录以及封面、书名页、版权页等前置页面；找不到spine时按压缩包内的条目顺序解析。
+ */
+final class EpubParser implements BookParser {
+    private static final int MAX_XML_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String TEMP_PREFIX = "ingest";
+    private static final String TEMP_SUFFIX = ".epub";
+    private static final String CONTAINER = "META-INF/container.xml";
+    private static final int FLAGS = Pattern.DOTALL | Pattern.CASE_INSENSITIVE;
+    private static final Pattern TITLE = Pattern.compile("<dc:title[^>]*>(.*?)</dc:title>", FLAGS);
+    private static final Pattern ROOTFILE = Pattern.compile("<rootfile\\b[^>]*>", FLAGS);
+    private static final Pattern ITEM = Pattern.compile("<(?:opf:)?item\\b[^>]*>", FLAGS);
+    private static final Pattern ITEMREF = Pattern.compile("<(?:opf:)?itemref\\b[^>]*>", FLAGS);
+    private static final Pattern REFERENCE = Pattern.compile("<(?:opf:)?reference\\b[^>]*>", FLAGS);
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:.-]+)\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)')");
+    private static final Pattern DOCUMENT = Pattern.compile("\\.x?html?$", Pattern.CASE_INSENSITIVE);
+    /** 按文件名识别的前置页面，如cover.xhtml、titlepage.xhtml、copyright.html、toc.xhtml */
+    private static final Pattern FRONT_MATTER = Pattern.compile(
+            "(cover|title[-_]?page|copyright([-_]?page)?|toc|nav|contents)([-_]?[0-9]+)?");
+    private static final Set<String> FRONT_MATTER_TYPES = new HashSet<>(Arrays.asList(
+            "cover", "title-page", "copyright-page", "toc"));
+
+    /**
+     * 输入流不支持随机访问，先写入临时文件再解析。
+     * 加密保存的书籍也会走到这里，临时文件是解密后的明文，位于java.io.tmpdir（Android上为应用私有的缓存目录），
+     * 解析结束后立即删除；进程在解析中被杀死时会留下明文副本，由{@link #deleteTempFiles(File)}在下次启动时清理
+     */
+    @Override
+    public void parse(InputStream in, BlockSink sink) throws IOException, InterruptedException {
+        File temp = File.createTempFile(TEMP_PREFIX, TEMP_SUFFIX);
+        try {
+            try (OutputStream out = new FileOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            parse(temp, sink);
+        } finally {
+            temp.delete();
+        }
+    }
+
+    /**
+     * 删除之前未能清理的临时文件，返回删除的数量
+     */
+    static int deleteTempFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(TEMP_PREFIX) && name.endsWith(TEMP_SUFFIX));
+        int deleted = 0;
+        if (files != null) {
+            for (File file : files) {
+                if (file.delete()) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public void parse(File file, BlockSink sink) throws IOException, InterruptedException {
+        try (ZipFile zip = new ZipFile(file)) {
+            List<ZipEntry> documents = null;
+            String opfPath = findPackage(zip);
+            if (opfPath != null) {
+                String opf = readText(zip, zip.getEntry(opfPath));
+                String title = readTitle(opf);
+                if (title != null) {
+                    sink.accept(TextBlock.title(title));
+                }
+                documents = spineDocuments(zip, opfPath, opf);
+            }
+            if (documents == null) {
+                documents = archiveDocuments(zip);
+            }
+
+            for (ZipEntry entry : documents) {
+                sink.accept(TextBlock.SECTION_BREAK);
+                try (InputStream in = zip.getInputStream(entry)) {
+                    // 书名取自OPF，忽略各个xhtml文件里的<title>
+                    new HtmlParser().parse(in, block -> {
+                        if (block.type != TextBlock.Type.TITLE) {
+                            sink.accept(block);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    /**
+     * 从META-INF/container.xml找到OPF文件，缺失时使用第一个.opf条目
+     */
+    private static String findPackage(ZipFile zip) throws IOException {
+        ZipEntry container = zip.getEntry(CONTAINER);
+        if (container != null) {
+            Matcher matcher = ROOTFILE.matcher(readText(zip, container));
+            while (matcher.find()) {
+                Map<String, String> attributes = attributes(matcher.group());
+                String path = attributes.get("full-path");
+                String mediaType = attributes.get("media-type");
+                if (path != null && (mediaType == null || mediaType.contains("oebps-package"))
+                        && zip.getEntry(path) != null) {
+                    return path;
+                }
+            }
+        }
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && entry.getName().toLowerCase(Locale.ROOT).endsWith(".opf")) {
+                return entry.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按spine顺序列出正文文件；没有可用的spine时返回null
+     */
+    private static List<ZipEntry> spineDocuments(ZipFile zip, String opfPath, String opf) {
+        String baseDir = opfPath.substring(0, opfPath.lastIndexOf('/') + 1);
+
+        Map<String, Map<String, String>> items = new HashMap<>();
+        Matcher matcher = ITEM.matcher(opf);
+        while (matcher.find()) {
+            Map<String, String> attributes = attributes(matcher.group());
+            String id = attributes.get("id");
+            if (id != null && attributes.get("href") != null) {
+                items.put(id, attributes);
+            }
+        }
+
+        Set<String> frontMatter = new HashSet<>();
+        matcher = REFERENCE.matcher(opf);
+        while (matcher.find()) {
+            Map<String, String> attributes = attributes(matcher.group());
+            String type = attributes.get("type");
+            String href = attributes.get("href");
+            if (type != null && href != null && FRONT_MATTER_TYPES.contains(type.toLowerCase(Locale.ROOT))) {
+                frontMatter.add(resolve(baseDir, href));
+            }
+        }
+
+        boolean hasSpine = false;
+        Set<String> paths = new LinkedHashSet<>();
+        matcher = ITEMREF.matcher(opf);
+        while (matcher.find()) {
+            hasSpine = true;
+            Map<String, String> itemref = attributes(matcher.group());
+            Map<String, String> item = items.get(itemref.get("idref"));
+            if (item == null || "no".equalsIgnoreCase(itemref.get("linear"))) {
+                continue;
+            }
+            String mediaType = item.get("media-type");
+            String properties = item.get("properties");
+            if ((mediaType != null && !mediaType.contains("html"))
+                    || (properties != null && properties.contains("nav"))) {
+                continue;
+            }
+            String path = resolve(baseDir, item.get("href"));
+            if (!frontMatter.contains(path) && !isFrontMatter(path)) {
+                paths.add(path);
+            }
+        }
+        if (!hasSpine) {
+            return null;
+        }
+
+        List<ZipEntry> documents = new ArrayList<>();
+        for (String path : paths) {
+            ZipEntry entry = zip.getEntry(path);
+            if (entry != null && !entry.isDirectory()) {
+                documents.add(entry);
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * 按压缩包内的条目顺序列出正文文件
+     */
+    private static List<ZipEntry> archiveDocuments(ZipFile zip) {
+        List<ZipEntry> documents = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (!entry.isDirectory() && DOCUMENT.matcher(entry.getName()).find() && !isFrontMatter(entry.getName())) {
+                documents.add(entry);
+            }
+        }
+        return documents;
+    }
+
+    private static boolean isFrontMatter(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        int dot = name.lastIndexOf('.');
+        return FRONT_MATTER.matcher(dot < 0 ? name : name.substring(0, dot)).matches();
+    }
+
+    private static String readTitle(String opf) {
+        Matcher matcher = TITLE.matcher(opf);
+        if (!matcher.find()) {
+            return null;
+        }
+        String title = matcher.group(1).replaceAll("<[^>]*>", "").trim();
+        return title.isEmpty() ? null : title;
+    }
+
+    private static Map<String, String> attributes(String tag) {
+        Map<String, String> attributes = new HashMap<>();
+        Matcher matcher = ATTRIBUTE.matcher(tag);
+        while (matcher.find()) {
+            String value = matcher.group(2) != null ? matcher.group(2) : matcher.group(3);
+            attributes.put(matcher.group(1).toLowerCase(Locale.ROOT), value.replace("&amp;", "&"));
+        }
+        return attributes;
+    }
+
+    /**
+     * 把OPF中的相对href解析为压缩包内的条目名，去掉片段标识并解码百分号转义
+     */
+    static String resolve(String baseDir, String href) {
+        int hash = href.indexOf('#');
+        if (hash >= 0) {
+            href = href.substring(0, hash);
+        }
+        if (href.indexOf('%') >= 0) {
+            try {
+                href = URLDecoder.decode(href.replace("+", "%2B"), "UTF-8");
+            } catch (UnsupportedEncodingException | IllegalArgumentException ignored) {
+                // 按原文使用
+            }
+        }
+        Deque<String> segments = new ArrayDeque<>();
+        String path = href.startsWith("/") ? href.substring(1) : baseDir + href;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                segments.pollLast();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+        return String.join("/", segments);
+    }
+
+    private static String readText(ZipFile zip, ZipEntry entry) throws IOException {
+        if (entry == null) {
+            return "";
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = zip.getInputStream(entry)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while (out.size() < MAX_XML_SIZE && (n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.english_reader.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 流式HTML/XHTML解析：逐字符扫描标签，块级标签分段，h1/h2作为章节标题，跳过script/style
+ */
+final class HtmlParser implements BookParser {
+    private static final int MAX_TAG_LENGTH = 2048;
+    private static final int MAX_ENTITY_LENGTH = 10;
+    private static final Set<String> BLOCK_TAGS = new HashSet<>(Arrays.asList(
+            "p", "div", "br", "li", "ul", "ol", "dl", "dt", "dd", "tr", "table", "blockquote",
+            "section", "article", "aside", "header", "footer", "hr", "pre", "figure", "figcaption",
+            "h3", "h4", "h5", "h6", "body"));
+    private static final Set<String> HEADING_TAGS = new HashSet<>(Arrays.asList("h1", "h2"));
+    private static final Set<String> SKIP_TAGS = new HashSet<>(Arrays.asList("script", "style"));
+    private static final Map<String, Character> ENTITIES = new HashMap<>();
+
+    static {
+        ENTITIES.put("amp", '&');
+        ENTITIES.put("lt", '<');
+        ENTITIES.put("gt", '>');
+        ENTITIES.put("quot", '"');
+        ENTITIES.put("apos", '\'');
+        ENTITIES.put("nbsp", '\u00a0');
+        ENTITIES.put("ndash", '\u2013');
+        ENTITIES.put("mdash", '\u2014');
+        ENTITIES.put("hellip", '\u2026');
+        ENTITIES.put("lsquo", '\u2018');
+        ENTITIES.put("rsquo", '\u2019');
+        ENTITIES.put("ldquo", '\u201c');
+        ENTITIES.put("rdquo", '\u201d');
+        ENTITIES.put("copy", '\u00a9');
+    }
+
+    private final char[] buffer = new char[8192];
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder tag = new StringBuilder();
+    private final StringBuilder entity = new StringBuilder();
+    private BlockSink sink;
+    private boolean inTag;
+    private boolean inComment;
+    // 注释中连续'-'的个数，用于识别"-->"
+    private int commentDashes;
+    private boolean inEntity;
+    private boolean inHeading;
+    private boolean inTitle;
+    private String skipUntil;
+    private int skipMatched;
+
+    @Override
+    public void parse(InputStream in, BlockSink sink) throws IOException, InterruptedException {
+        this.sink = sink;
+        text.setLength(0);
+        inTag = false;
+        inComment = false;
+        commentDashes = 0;
+        inEntity = false;
+        inHeading = false;
+        inTitle = false;
+        skipUntil = null;
+        skipMatched = 0;
+
+        // 不关闭reader，EPUB中的输入流由调用方管理
+        Reader reader = CharsetSniffer.openReader(in, true);
+        int n;
+        while ((n = reader.read(buffer, 0, buffer.length)) > 0) {
+            for (int i = 0; i < n; i++) {
+                handleChar(buffer[i]);
+            }
+        }
+        if (inEntity) {
+            text.append('&').append(entity);
+        }
+        inHeading = false;
+        inTitle = false;
+        flushParagraph();
+    }
+
+    private void handleChar(char c) throws InterruptedException {
+        if (inComment) {
+            // 注释单独处理，不受标签缓冲区长度限制
+            if (c == '>' && commentDashes >= 2) {
+                inComment = false;
+            }
+            commentDashes = c == '-' ? commentDashes + 1 : 0;
+            return;
+        }
+        if (inTag) {
+            if (c == '>') {
+                inTag = false;
+                handleTag();
+                return;
+            }
+            if (tag.length() < MAX_TAG_LENGTH) {
+                tag.append(c);
+            }
+            if (tag.length() == 3 && startsWith(tag, "!--")) {
+                inTag = false;
+                inComment = true;
+                commentDashes = 0;
+            }
+            return;
+        }
+        if (skipUntil != null) {
+            skipRawText(c);
+            return;
+        }
+        if (c == '<') {
+            if (inEntity) {
+                inEntity = false;
+                text.append('&').append(entity);
+            }
+            inTag = true;
+            tag.setLength(0);
+            return;
+        }
+        if (inEntity) {
+            if (c == ';') {
+                inEntity = false;
+                appendEntity();
+                return;
+            }
+            if ((Character.isLetterOrDigit(c) || c == '#') && entity.length() < MAX_ENTITY_LENGTH) {
+                entity.append(c);
+                return;
+            }
+            inEntity = false;
+            text.append('&').append(entity);
+        }
+        if (c == '&') {
+            inEntity = true;
+            entity.setLength(0);
+            return;
+        }
+        text.append(c);
+        // 优先在空白处拆分；没有空白的文本（如中文）超过两倍长度时强制拆分，不拆开代理对
+        if (text.length() >= MAX_PARAGRAPH_CHARS && (Character.isWhitespace(c)
+                || (text.length() >= 2 * MAX_PARAGRAPH_CHARS && !Character.isHighSurrogate(c)))) {
+            // 未闭合的标题按普通段落处理，避免无限增长
+            inHeading = false;
+            inTitle = false;
+            flushParagraph();
+        }
+    }
+
+    /**
+     * script/style中的内容按原始文本处理（可能包含'<'），只查找对应的结束标签
+     */
+    private void skipRawText(char c) {
+        String endTag = "</" + skipUntil;
+        if (Character.toLowerCase(c) == endTag.charAt(skipMatched)) {
+            skipMatched++;
+            if (skipMatched == endTag.length()) {
+                skipMatched = 0;
+                inTag = true;
+                tag.setLength(0);
+                tag.append(endTag, 1, endTag.length());
+            }
+        } else {
+            skipMatched = c == '<' ? 1 : 0;
+        }
+    }
+
+    private void handleTag() throws InterruptedException {
+        if (tag.length() == 0 || tag.charAt(0) == '!' || tag.charAt(0) == '?') {
+            return;
+        }
+        boolean closing = tag.charAt(0) == '/';
+        int start = closing ? 1 : 0;
+        int end = start;
+        while (end < tag.length() && Character.isLetterOrDigit(tag.charAt(end))) {
+            end++;
+        }
+        String name = tag.substring(start, end).toLowerCase(Locale.ROOT);
+        boolean selfClosing = endsWith(tag, "/");
+
+        if (skipUntil != null) {
+            if (closing && name.equals(skipUntil)) {
+                skipUntil = null;
+            }
+            return;
+        }
+        if (!closing && !selfClosing && SKIP_TAGS.contains(name)) {
+            skipUntil = name;
+            return;
+        }
+
+        if ("title".equals(name)) {
+            if (closing) {
+                String title = text.toString().trim();
+                text.setLength(0);
+                inTitle = false;
+                if (!title.isEmpty()) {
+                    sink.accept(TextBlock.title(title));
+                }
+            } else {
+                flushParagraph();
+                inTitle = true;
+            }
+        } else if (HEADING_TAGS.contains(name)) {
+            if (closing) {
+                String heading = text.toString().trim();
+                text.setLength(0);
+                inHeading = false;
+                if (!heading.isEmpty()) {
+                    sink.accept(TextBlock.heading(heading));
+                }
+            } else {
+                flushParagraph();
+                inHeading = true;
+            }
+        } else if (BLOCK_TAGS.contains(name)) {
+            if (inHeading || inTitle) {
+                text.append(' ');
+            } else {
+                flushParagraph();
+            }
+        }
+    }
+
+    private void appendEntity() {
+        String name = entity.toString();
+        Character c = ENTITIES.get(name);
+        if (c != null) {
+            text.append(c.charValue());
+            return;
+        }
+        if (name.startsWith("#")) {
+            try {
+                int codePoint = name.startsWith("#x") || name.startsWith("#X")
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                if (Character.isValidCodePoint(codePoint)) {
+                    text.appendCodePoint(codePoint);
+                    return;
+                }
+            } catch (NumberFormatException ignored) {
+                // 按原文保留
+            }
+        }
+        text.append('&').append(name).append(';');
+    }
+
+    private void flushParagraph() throws InterruptedException {
+        if (inHeading || inTitle) {
+            return;
+        }
+        if (text.length() > 0) {
+            String paragraph = text.toString();
+            text.setLength(0);
+            if (!paragraph.trim().isEmpty()) {
+                sink.accept(TextBlock.paragraph(paragraph));
+            }
+        }
+    }
+
+    private static boolean startsWith(StringBuilder sb, String prefix) {
+        return sb.length() >= prefix.length() && sb.substring(0, prefix.length()).equals(prefix);
+    }
+
+    private static boolean endsWith(StringBuilder sb, String suffix) {
+        return sb.length() >= suffix.length() && sb.substring(sb.length() - suffix.length()).equals(suffix);
+    }
+}
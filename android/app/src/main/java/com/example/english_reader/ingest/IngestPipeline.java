@@ -0,0 +1,243 @@
+package com.example.english_reader.ingest;
+
+import com.example.english_reader.storage.FileStore;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台导入流水线，把导入的TXT/EPUB/HTML文件转换为可直接阅读的章节文本和章节清单。
+ *
+ * 每个导入任务分为两个阶段，通过有界队列连接：
+ * 1. 解析阶段：检测格式并流式解析，输出标题和段落；
+ * 2. 写入阶段：规范化空白、切分章节，写出 {@code <文件名>.chapters.txt}，最后写出 {@code <文件名>.manifest.json}。
+ * 同时运行的任务数和等待中的任务数都有上限，因此内存占用与文件大小和导入数量无关。
+ */
+public class IngestPipeline {
+    public static final String CHAPTERS_SUFFIX = ".chapters.txt";
+    public static final String MANIFEST_SUFFIX = ".manifest.json";
+    private static final int BLOCK_QUEUE_CAPACITY = 64;
+
+    /**
+     * 导入结果回调，在工作线程上调用
+     */
+    public interface Callback {
+        void onComplete(BookManifest manifest);
+
+        void onError(Exception e);
+    }
+
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService parseExecutor;
+    private final Map<String, Job> jobs = new HashMap<>();
+
+    /**
+     * @param maxConcurrentJobs 同时处理的导入数量
+     * @param maxPendingJobs    排队等待的导入数量，超过时拒绝新的导入
+     */
+    public IngestPipeline(int maxConcurrentJobs, int maxPendingJobs) {
+        jobExecutor = new ThreadPoolExecutor(
+                maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPendingJobs), new NamedThreadFactory("ingest-write"));
+        // 每个运行中的任务最多提交一个解析任务，线程数与任务数相同即可保证解析任务不会排队
+        parseExecutor = Executors.newFixedThreadPool(maxConcurrentJobs, new NamedThreadFactory("ingest-parse"));
+        // 上次进程在解析EPUB时被杀死会留下解密后的临时文件；在提交任务前同步清理，避免删掉正在使用的文件
+        EpubParser.deleteTempFiles(new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    public static String chaptersName(String fileName) {
+        return fileName + CHAPTERS_SUFFIX;
+    }
+
+    public static String manifestName(String fileName) {
+        return fileName + MANIFEST_SUFFIX;
+    }
+
+    /**
+     * 文件是否正在导入
+     */
+    public synchronized boolean isRunning(String fileName) {
+        return jobs.containsKey(fileName);
+    }
+
+    /**
+     * 导入文件。同一文件正在导入时只追加回调，否则删除旧的清单并重新导入
+     */
+    public void submit(FileStore fileStore, String fileName, Callback callback) {
+        Job job;
+        synchronized (this) {
+            job = jobs.get(fileName);
+            if (job != null) {
+                job.callbacks.add(callback);
+                return;
+            }
+            job = new Job(fileStore, fileName);
+            job.callbacks.add(callback);
+            jobs.put(fileName, job);
+            fileStore.deleteFile(manifestName(fileName));
+            try {
+                jobExecutor.execute(job);
+                return;
+            } catch (RejectedExecutionException e) {
+                jobs.remove(fileName);
+            }
+        }
+        callback.onError(new IOException("Too many pending imports"));
+    }
+
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private final class Job implements Runnable {
+        private final FileStore fileStore;
+        private final String fileName;
+        private final List<Callback> callbacks = new ArrayList<>();
+
+        Job(FileStore fileStore, String fileName) {
+            this.fileStore = fileStore;
+            this.fileName = fileName;
+        }
+
+        @Override
+        public void run() {
+            BookManifest manifest = null;
+            Exception error = null;
+            try {
+                manifest = ingest();
+            } catch (Exception e) {
+                error = e;
+                fileStore.deleteFile(chaptersName(fileName));
+                fileStore.deleteFile(manifestName(fileName));
+            }
+
+            List<Callback> toNotify;
+            synchronized (IngestPipeline.this) {
+                jobs.remove(fileName);
+                toNotify = new ArrayList<>(callbacks);
+            }
+            for (Callback callback : toNotify) {
+                if (error == null) {
+                    callback.onComplete(manifest);
+                } else {
+                    callback.onError(error);
+                }
+            }
+        }
+
+        private BookManifest ingest() throws IOException, InterruptedException {
+            BlockingQueue<TextBlock> queue = new ArrayBlockingQueue<>(BLOCK_QUEUE_CAPACITY);
+            BookFormat[] format = new BookFormat[1];
+            Future<Void> parse = parseExecutor.submit(() -> {
+                try (InputStream in = new BufferedInputStream(fileStore.openInputStream(fileName))) {
+                    format[0] = detect(in);
+                    BookParser parser = format[0].newParser();
+                    // 明文保存的文件直接按文件解析，EPUB可以随机访问而不必复制
+                    File localFile = fileStore.getLocalFile(fileName);
+                    if (localFile != null) {
+                        parser.parse(localFile, queue::put);
+                    } else {
+                        parser.parse(in, queue::put);
+                    }
+                } catch (IOException | RuntimeException | Error e) {
+                    queue.put(TextBlock.END);
+                    throw e;
+                }
+                // 被取消时（InterruptedException）写入阶段已经退出，不再放入结束标记
+                queue.put(TextBlock.END);
+                return null;
+            });
+
+            List<BookManifest.Chapter> chapters;
+            String title;
+            try (OutputStream out = fileStore.openOutputStream(chaptersName(fileName))) {
+                ChapterWriter writer = new ChapterWriter(out);
+                TextBlock block;
+                while ((block = queue.take()) != TextBlock.END) {
+                    writer.accept(block);
+                }
+                awaitParser(parse);
+                chapters = writer.finish();
+                title = writer.getBookTitle();
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                parse.cancel(true);
+                throw e;
+            }
+
+            BookManifest manifest = new BookManifest(fileName, chaptersName(fileName), format[0],
+                    title != null ? title : fileName, chapters);
+            // 清单最后写出，存在清单即表示导入完成
+            try (Writer writer = new OutputStreamWriter(
+                    fileStore.openOutputStream(manifestName(fileName)), StandardCharsets.UTF_8)) {
+                writer.write(manifest.toJson());
+            }
+            return manifest;
+        }
+
+        private BookFormat detect(InputStream in) throws IOException {
+            byte[] head = new byte[BookFormat.SNIFF_LENGTH];
+            in.mark(head.length);
+            int length = 0;
+            int n;
+            while (length < head.length && (n = in.read(head, length, head.length - length)) != -1) {
+                length += n;
+            }
+            in.reset();
+            BookFormat format = BookFormat.detect(head, length, fileName);
+            if (format == null) {
+                throw new IOException("Unsupported file format: " + fileName);
+            }
+            return format;
+        }
+
+        private void awaitParser(Future<Void> parse) throws IOException, InterruptedException {
+            try {
+                parse.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Error parsing " + fileName, cause);
+            }
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.english_reader.ingest;
+
+/**
+ * 解析阶段输出、写入阶段消费的文本块
+ */
+final class TextBlock {
+    enum Type {
+        /** 书名 */
+        TITLE,
+        /** 新的文档片段（如EPUB中的一个xhtml文件），有内容时开始新章节 */
+        SECTION,
+        /** 章节标题 */
+        HEADING,
+        /** 段落 */
+        PARAGRAPH,
+        /** 解析结束 */
+        END
+    }
+
+    static final TextBlock SECTION_BREAK = new TextBlock(Type.SECTION, "");
+    static final TextBlock END = new TextBlock(Type.END, "");
+
+    final Type type;
+    final String text;
+
+    private TextBlock(Type type, String text) {
+        this.type = type;
+        this.text = text;
+    }
+
+    static TextBlock title(String text) {
+        return new TextBlock(Type.TITLE, text);
+    }
+
+    static TextBlock heading(String text) {
+        return new TextBlock(Type.HEADING, text);
+    }
+
+    static TextBlock paragraph(String text) {
+        return new TextBlock(Type.PARAGRAPH, text);
+    }
+}
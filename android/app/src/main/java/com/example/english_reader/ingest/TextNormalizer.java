@@ -0,0 +1,32 @@
+package com.example.english_reader.ingest;
+
+/**
+ * 空白规范化：合并连续空白（含不换行空格、全角空格），去掉控制字符和首尾空白
+ */
+final class TextNormalizer {
+
+    private TextNormalizer() {
+    }
+
+    static String normalize(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = result.length() > 0;
+            } else if (!isInvisible(c)) {
+                if (pendingSpace) {
+                    result.append(' ');
+                    pendingSpace = false;
+                }
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static boolean isInvisible(char c) {
+        return Character.isISOControl(c) || c == '\ufeff' || c == '\u200b';
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.english_reader.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+/**
+ * 纯文本解析：空行或缩进分段，识别常见的章节标题行
+ */
+final class TxtParser implements BookParser {
+    private static final int MAX_HEADING_LENGTH = 80;
+    private static final String NUMBER =
+            "([0-9]+|[ivxlcdm]+|one|two|three|four|five|six|seven|eight|nine|ten|eleven|twelve"
+                    + "|[a-z]+teen|(twenty|thirty|forty|fifty|sixty|seventy|eighty|ninety)(-[a-z]+)?)";
+    private static final Pattern HEADING = Pattern.compile(
+            "(chapter|book|part|volume)\\s+" + NUMBER + "(\\s*[.:\\-\u2014]\\s*.{0,60})?"
+                    + "|(prologue|epilogue|preface|introduction|afterword)[.:]?"
+                    + "|\u7b2c[0-9\u96f6\u3007\u4e00\u4e8c\u4e09\u56db\u4e94\u516d\u4e03\u516b\u4e5d\u5341\u767e\u5343\u4e24]+"
+                    + "[\u7ae0\u56de\u8282\u5377]([\\s:\uff1a].{0,40})?",
+            Pattern.CASE_INSENSITIVE);
+
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+
+    @Override
+    public void parse(InputStream in, BlockSink sink) throws IOException, InterruptedException {
+        Reader reader = CharsetSniffer.openReader(in, false);
+        StringBuilder line = new StringBuilder();
+        StringBuilder paragraph = new StringBuilder();
+        boolean more = true;
+        while (more) {
+            more = readLine(reader, line);
+            String text = line.toString();
+            String trimmed = text.trim();
+            if (trimmed.isEmpty()) {
+                flush(paragraph, sink);
+                continue;
+            }
+            if (trimmed.length() <= MAX_HEADING_LENGTH && HEADING.matcher(trimmed).matches()) {
+                flush(paragraph, sink);
+                sink.accept(TextBlock.heading(trimmed));
+                continue;
+            }
+            if (isIndented(text)) {
+                flush(paragraph, sink);
+            }
+            if (paragraph.length() > 0) {
+                paragraph.append(' ');
+            }
+            paragraph.append(trimmed);
+            if (paragraph.length() >= MAX_PARAGRAPH_CHARS) {
+                flush(paragraph, sink);
+            }
+        }
+        flush(paragraph, sink);
+    }
+
+    private static void flush(StringBuilder paragraph, BlockSink sink) throws InterruptedException {
+        if (paragraph.length() > 0) {
+            sink.accept(TextBlock.paragraph(paragraph.toString()));
+            paragraph.setLength(0);
+        }
+    }
+
+    private static boolean isIndented(String line) {
+        return line.startsWith("  ") || line.startsWith("\t") || line.startsWith("\u3000");
+    }
+
+    /**
+     * 读取一行到line中，超长的行按MAX_PARAGRAPH_CHARS截断为多行；返回false表示已到文件末尾
+     */
+    private boolean readLine(Reader reader, StringBuilder line) throws IOException {
+        line.setLength(0);
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return false;
+                }
+            }
+            char c = buffer[position++];
+            if (c == '\n') {
+                return true;
+            }
+            if (c != '\r') {
+                line.append(c);
+                if (line.length() >= MAX_PARAGRAPH_CHARS) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.english_reader.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存清理（需要Android 8.0及以上）。
+ *
+ * 用Files.walkFileTree非递归地遍历目录，待删除的文件分批提交到工作线程池并行删除，
+ * 同时在途的批次数有上限；文件删除完成后再从深到浅删除子目录，部分清理时只删除本次清理变空的子目录。
+ * 支持全部清除、按最后修改时间清除以及按总大小从最旧的文件开始清除，释放的字节数只统计实际删除成功的文件。
+ */
+public class CachePurger {
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * 清理进度回调，在工作线程上调用
+     */
+    public interface ProgressListener {
+        void onProgress(long filesDeleted, long bytesFreed);
+    }
+
+    /**
+     * 清理条件
+     */
+    public static final class Request {
+        private final boolean deleteAll;
+        private final long maxAgeMillis;
+        private final long maxSizeBytes;
+
+        private Request(boolean deleteAll, long maxAgeMillis, long maxSizeBytes) {
+            this.deleteAll = deleteAll;
+            this.maxAgeMillis = maxAgeMillis;
+            this.maxSizeBytes = maxSizeBytes;
+        }
+
+        /**
+         * 删除全部文件和子目录
+         */
+        public static Request all() {
+            return new Request(true, -1, -1);
+        }
+
+        /**
+         * 删除最后修改时间早于maxAgeMillis之前的文件
+         */
+        public static Request olderThan(long maxAgeMillis) {
+            return new Request(false, maxAgeMillis, -1);
+        }
+
+        /**
+         * 从最旧的文件开始删除，直到总大小不超过maxSizeBytes
+         */
+        public static Request trimTo(long maxSizeBytes) {
+            return new Request(false, -1, maxSizeBytes);
+        }
+
+        /**
+         * 按时间清除后，再把剩余文件裁剪到maxSizeBytes
+         */
+        public Request andTrimTo(long maxSizeBytes) {
+            return new Request(deleteAll, maxAgeMillis, maxSizeBytes);
+        }
+
+        public boolean isDeleteAll() {
+            return deleteAll;
+        }
+    }
+
+    /**
+     * 清理结果
+     */
+    public static final class Result {
+        private final long filesDeleted;
+        private final long directoriesDeleted;
+        private final long bytesFreed;
+        private final long failures;
+
+        Result(long filesDeleted, long directoriesDeleted, long bytesFreed, long failures) {
+            this.filesDeleted = filesDeleted;
+            this.directoriesDeleted = directoriesDeleted;
+            this.bytesFreed = bytesFreed;
+            this.failures = failures;
+        }
+
+        public long getFilesDeleted() {
+            return filesDeleted;
+        }
+
+        public long getDirectoriesDeleted() {
+            return directoriesDeleted;
+        }
+
+        public long getBytesFreed() {
+            return bytesFreed;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+    }
+
+    private final ExecutorService workers;
+    private final int maxBatchesInFlight;
+
+    /**
+     * @param workers     执行删除的线程池
+     * @param parallelism 线程池的线程数，同时在途的批次数为其两倍
+     */
+    public CachePurger(ExecutorService workers, int parallelism) {
+        this.workers = workers;
+        this.maxBatchesInFlight = parallelism * 2;
+    }
+
+    /**
+     * 按条件清理各个根目录，根目录本身保留。在调用线程上遍历目录，应在后台线程调用
+     */
+    public Result purge(List<File> roots, Request request, ProgressListener listener)
+            throws IOException, InterruptedException {
+        Purge purge = new Purge(request, listener);
+        try {
+            for (File root : roots) {
+                if (root != null && root.isDirectory()) {
+                    purge.walk(root.toPath());
+                }
+            }
+            purge.trim();
+        } finally {
+            purge.awaitBatches();
+        }
+        purge.deleteEmptyDirectories();
+        return purge.result();
+    }
+
+    private static final class Entry {
+        final Path path;
+        final long size;
+        final long lastModified;
+
+        Entry(Path path, long size, long lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    private final class Purge {
+        private final Request request;
+        private final ProgressListener listener;
+        private final long cutoff;
+        private final Semaphore inFlight = new Semaphore(maxBatchesInFlight);
+        private final AtomicLong filesDeleted = new AtomicLong();
+        private final AtomicLong bytesFreed = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        // 累加计数和回调放在同一把锁内，多个工作线程报告的进度不会倒退
+        private final Object progressLock = new Object();
+        private final List<Path> directories = new ArrayList<>();
+        // 部分清理时，有文件或子目录被删除的目录
+        private final Set<Path> emptiedDirectories = new HashSet<>();
+        // 只有按大小裁剪时才需要保留未删除文件的信息
+        private final List<Entry> retained = new ArrayList<>();
+        private long retainedBytes;
+        private long directoriesDeleted;
+        private List<Path> batchPaths = new ArrayList<>(BATCH_SIZE);
+        private long[] batchSizes = new long[BATCH_SIZE];
+
+        Purge(Request request, ProgressListener listener) {
+            this.request = request;
+            this.listener = listener;
+            this.cutoff = request.maxAgeMillis >= 0
+                    ? System.currentTimeMillis() - request.maxAgeMillis
+                    : Long.MIN_VALUE;
+        }
+
+        void walk(Path root) throws IOException, InterruptedException {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root)) {
+                        directories.add(dir);
+                    }
+                    return Thread.currentThread().isInterrupted()
+                            ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    long size = attrs.isRegularFile() ? attrs.size() : 0;
+                    long lastModified = attrs.lastModifiedTime().toMillis();
+                    if (request.deleteAll || lastModified < cutoff) {
+                        try {
+                            schedule(file, size);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return FileVisitResult.TERMINATE;
+                        }
+                    } else if (request.maxSizeBytes >= 0) {
+                        retained.add(new Entry(file, size, lastModified));
+                        retainedBytes += size;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    failures.incrementAndGet();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+                    // 目录中途读取失败时记一次失败并继续，默认实现会抛出异常中止整个清理
+                    if (e != null) {
+                        failures.incrementAndGet();
+                    }
+                    return Thread.currentThread().isInterrupted()
+                            ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+            });
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+
+        /**
+         * 按大小裁剪：从最旧的文件开始删除
+         */
+        void trim() throws InterruptedException {
+            if (request.maxSizeBytes >= 0 && retainedBytes > request.maxSizeBytes) {
+                Collections.sort(retained, (a, b) -> Long.compare(a.lastModified, b.lastModified));
+                for (Entry entry : retained) {
+                    if (retainedBytes <= request.maxSizeBytes) {
+                        break;
+                    }
+                    schedule(entry.path, entry.size);
+                    retainedBytes -= entry.size;
+                }
+            }
+            retained.clear();
+            flushBatch();
+        }
+
+        void schedule(Path file, long size) throws InterruptedException {
+            if (!request.deleteAll) {
+                emptiedDirectories.add(file.getParent());
+            }
+            batchSizes[batchPaths.size()] = size;
+            batchPaths.add(file);
+            if (batchPaths.size() == BATCH_SIZE) {
+                flushBatch();
+            }
+        }
+
+        void flushBatch() throws InterruptedException {
+            if (batchPaths.isEmpty()) {
+                return;
+            }
+            List<Path> paths = batchPaths;
+            long[] sizes = batchSizes;
+            batchPaths = new ArrayList<>(BATCH_SIZE);
+            batchSizes = new long[BATCH_SIZE];
+
+            inFlight.acquire();
+            try {
+                workers.execute(() -> {
+                    try {
+                        deleteBatch(paths, sizes);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        void deleteBatch(List<Path> paths, long[] sizes) {
+            long deleted = 0;
+            long freed = 0;
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    if (Files.deleteIfExists(paths.get(i))) {
+                        deleted++;
+                        freed += sizes[i];
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            }
+            synchronized (progressLock) {
+                long totalDeleted = filesDeleted.addAndGet(deleted);
+                long totalFreed = bytesFreed.addAndGet(freed);
+                if (listener != null) {
+                    listener.onProgress(totalDeleted, totalFreed);
+                }
+            }
+        }
+
+        /**
+         * 等待所有已提交的批次完成
+         */
+        void awaitBatches() throws InterruptedException {
+            inFlight.acquire(maxBatchesInFlight);
+            inFlight.release(maxBatchesInFlight);
+        }
+
+        /**
+         * 从深到浅删除子目录。部分清理时只删除本次删掉了内容的目录，
+         * 原本就是空的目录（可能刚被其他组件创建）和仍有文件的目录都会保留
+         */
+        void deleteEmptyDirectories() {
+            // 先序遍历中子目录总在父目录之后，倒序即可先删子目录
+            for (int i = directories.size() - 1; i >= 0; i--) {
+                Path dir = directories.get(i);
+                if (!request.deleteAll && !emptiedDirectories.contains(dir)) {
+                    continue;
+                }
+                try {
+                    Files.delete(dir);
+                    directoriesDeleted++;
+                    if (!request.deleteAll) {
+                        emptiedDirectories.add(dir.getParent());
+                    }
+                } catch (DirectoryNotEmptyException e) {
+                    if (request.deleteAll) {
+                        failures.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            }
+            directories.clear();
+            emptiedDirectories.clear();
+        }
+
+        Result result() {
+            return new Result(filesDeleted.get(), directoriesDeleted, bytesFreed.get(), failures.get());
+        }
+    }
+}
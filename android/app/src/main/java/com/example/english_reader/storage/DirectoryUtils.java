@@ -0,0 +1,110 @@
+package com.example.english_reader.storage;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 目录相关的工具方法（不依赖Android Context）。均为迭代实现，目录层级再深也不会栈溢出
+ */
+public final class DirectoryUtils {
+    private static final int PROGRESS_INTERVAL = 256;
+
+    private DirectoryUtils() {
+    }
+
+    /**
+     * 获取目录大小
+     */
+    public static long getDirSize(File dir) {
+        if (dir == null || !dir.exists()) {
+            return 0;
+        }
+
+        long size = 0;
+        Deque<File> pending = new ArrayDeque<>();
+        pending.push(dir);
+        while (!pending.isEmpty()) {
+            File[] files = pending.pop().listFiles();
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                if (file.isFile()) {
+                    size += file.length();
+                } else {
+                    pending.push(file);
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 删除目录中的所有文件和子目录，保留目录本身
+     */
+    public static boolean deleteDir(File dir) {
+        if (dir == null || !dir.exists() || !dir.isDirectory()) {
+            return false;
+        }
+        return deleteDirs(Collections.singletonList(dir), null).getFailures() == 0;
+    }
+
+    /**
+     * 删除各个目录中的所有文件和子目录，保留目录本身。
+     * 统计删除的文件数、目录数和释放的字节数，每删除PROGRESS_INTERVAL个文件通过listener报告一次累计进度
+     */
+    public static CachePurger.Result deleteDirs(List<File> roots, CachePurger.ProgressListener listener) {
+        long filesDeleted = 0;
+        long bytesFreed = 0;
+        long directoriesDeleted = 0;
+        long failures = 0;
+        for (File root : roots) {
+            if (root == null || !root.isDirectory()) {
+                continue;
+            }
+            List<File> dirs = new ArrayList<>();
+            Deque<File> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                File[] files = pending.pop().listFiles();
+                if (files == null) {
+                    failures++;
+                    continue;
+                }
+                for (File file : files) {
+                    if (file.isDirectory()) {
+                        dirs.add(file);
+                        pending.push(file);
+                        continue;
+                    }
+                    long size = file.length();
+                    if (file.delete()) {
+                        filesDeleted++;
+                        bytesFreed += size;
+                        if (listener != null && filesDeleted % PROGRESS_INTERVAL == 0) {
+                            listener.onProgress(filesDeleted, bytesFreed);
+                        }
+                    } else {
+                        failures++;
+                    }
+                }
+            }
+            // 子目录总在父目录之后加入列表，倒序删除即可保证先删子目录
+            for (int i = dirs.size() - 1; i >= 0; i--) {
+                if (dirs.get(i).delete()) {
+                    directoriesDeleted++;
+                } else {
+                    failures++;
+                }
+            }
+        }
+        if (listener != null && filesDeleted % PROGRESS_INTERVAL != 0) {
+            listener.onProgress(filesDeleted, bytesFreed);
+        }
+        return new CachePurger.Result(filesDeleted, directoriesDeleted, bytesFreed, failures);
+    }
+}
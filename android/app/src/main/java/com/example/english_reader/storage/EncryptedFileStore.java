@@ -0,0 +1,226 @@
+package com.example.english_reader.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 分段AES-GCM加密的文件存储。读写都以分段为单位流式处理，内存占用与文件大小无关；
+ * 尚未加密的旧文件仍按明文读取。关闭写入加密后新文件以明文保存，已加密的文件照常解密读取。
+ */
+public class EncryptedFileStore implements FileStore {
+    private static final int BUFFER_SIZE = 8192;
+    private final File baseDir;
+    private final KeySource keySource;
+    private final int segmentSize;
+    private volatile boolean encryptWrites = true;
+
+    public EncryptedFileStore(File baseDir, KeySource keySource) {
+        this(baseDir, keySource, SegmentedCipher.DEFAULT_SEGMENT_SIZE);
+    }
+
+    public EncryptedFileStore(File baseDir, KeySource keySource, int segmentSize) {
+        this.baseDir = baseDir;
+        this.keySource = keySource;
+        this.segmentSize = segmentSize;
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * 设置新写入的文件是否加密，不影响读取
+     */
+    public void setEncryptWrites(boolean encryptWrites) {
+        this.encryptWrites = encryptWrites;
+    }
+
+    public boolean isEncryptWrites() {
+        return encryptWrites;
+    }
+
+    @Override
+    public String saveTextFile(String content, String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        try (OutputStream os = openOutputStream(file);
+             OutputStreamWriter writer = new OutputStreamWriter(os, StandardCharsets.UTF_8)) {
+            writer.write(content);
+            writer.flush();
+            return file.getAbsolutePath();
+        }
+    }
+
+    @Override
+    public String readTextFile(String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        StringBuilder content = new StringBuilder();
+        try (InputStream is = openInputStream(file);
+             InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
+             BufferedReader reader = new BufferedReader(isr)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append("\n");
+            }
+            return content.toString();
+        }
+    }
+
+    @Override
+    public String copyFrom(InputStream inputStream, String fileName) throws IOException {
+        File outputFile = new File(baseDir, fileName);
+        try (OutputStream os = openOutputStream(outputFile)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) != -1) {
+                os.write(buffer, 0, bytesRead);
+            }
+            return outputFile.getAbsolutePath();
+        }
+    }
+
+    @Override
+    public File getLocalFile(String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        return SegmentedCipher.isEncrypted(file) ? null : file;
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        File file = new File(baseDir, fileName);
+        return file.exists();
+    }
+
+    @Override
+    public boolean deleteFile(String fileName) {
+        File file = new File(baseDir, fileName);
+        return file.exists() && file.delete();
+    }
+
+    /**
+     * 只解密范围涉及到的分段
+     */
+    @Override
+    public byte[] readRange(String fileName, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid range: " + offset + ", " + length);
+        }
+        File file = new File(baseDir, fileName);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            byte[] header = new byte[SegmentedCipher.HEADER_SIZE];
+            int headerLength = LocalFileStore.readFully(channel, ByteBuffer.wrap(header), 0);
+            if (headerLength < header.length || !SegmentedCipher.isEncrypted(header)) {
+                return LocalFileStore.readRange(channel, offset, length);
+            }
+
+            SegmentedCipher cipher = SegmentedCipher.open(keySource.getKey(), header);
+            long fileLength = channel.size();
+            long segments = cipher.segmentCount(fileLength);
+            long end = Math.min(offset + length, cipher.plaintextSize(fileLength));
+            if (offset >= end) {
+                return new byte[0];
+            }
+
+            byte[] result = new byte[(int) (end - offset)];
+            byte[] ciphertext = new byte[cipher.getCiphertextSegmentSize()];
+            byte[] plaintext = new byte[cipher.getSegmentSize()];
+            int segSize = cipher.getSegmentSize();
+            for (long index = offset / segSize; index * segSize < end; index++) {
+                int n = LocalFileStore.readFully(channel, ByteBuffer.wrap(ciphertext), cipher.segmentOffset(index));
+                int plainLength = cipher.decryptSegment(ciphertext, n, index, index == segments - 1, plaintext);
+                long segmentStart = index * segSize;
+                int from = (int) Math.max(0, offset - segmentStart);
+                int to = (int) Math.min(plainLength, end - segmentStart);
+                System.arraycopy(plaintext, from, result, (int) (segmentStart + from - offset), to - from);
+            }
+            return result;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Error decrypting " + fileName, e);
+        }
+    }
+
+    /**
+     * 获取文件的明文长度
+     */
+    public long plaintextSize(String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            byte[] header = new byte[SegmentedCipher.HEADER_SIZE];
+            int headerLength = LocalFileStore.readFully(channel, ByteBuffer.wrap(header), 0);
+            if (headerLength < header.length || !SegmentedCipher.isEncrypted(header)) {
+                return channel.size();
+            }
+            return SegmentedCipher.open(keySource.getKey(), header).plaintextSize(channel.size());
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Error decrypting " + fileName, e);
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String fileName) throws IOException {
+        return openInputStream(new File(baseDir, fileName));
+    }
+
+    @Override
+    public OutputStream openOutputStream(String fileName) throws IOException {
+        return openOutputStream(new File(baseDir, fileName));
+    }
+
+    /**
+     * 打开加密输出流，关闭写入加密时返回明文流
+     */
+    private OutputStream openOutputStream(File file) throws IOException {
+        if (!encryptWrites) {
+            return new FileOutputStream(file);
+        }
+        SecretKey key = masterKey();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            return new EncryptedOutputStream(new BufferedOutputStream(fos, BUFFER_SIZE), key, segmentSize);
+        } catch (IOException e) {
+            fos.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 打开解密输入流，未加密的文件直接返回明文流
+     */
+    private InputStream openInputStream(File file) throws IOException {
+        if (!SegmentedCipher.isEncrypted(file)) {
+            return new FileInputStream(file);
+        }
+        SecretKey key = masterKey();
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            return new EncryptedInputStream(fis, key);
+        } catch (IOException e) {
+            fis.close();
+            throw e;
+        }
+    }
+
+    private SecretKey masterKey() throws IOException {
+        try {
+            return keySource.getKey();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot obtain storage key", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.english_reader.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 按分段解密读取的输入流，内存占用只有一个分段的大小
+ */
+public class EncryptedInputStream extends InputStream {
+    private final InputStream in;
+    private final SegmentedCipher cipher;
+    private final byte[] ciphertext;
+    private final byte[] plaintext;
+    private int position;
+    private int limit;
+    private long segmentIndex;
+    private boolean lastSegmentRead;
+    // 预读的下一个密文字节，用于判断当前分段是否为最后一段
+    private int lookahead = -1;
+
+    public EncryptedInputStream(InputStream in, SecretKey masterKey) throws IOException {
+        this.in = in;
+        byte[] header = new byte[SegmentedCipher.HEADER_SIZE];
+        if (readFully(header, 0, header.length) != header.length) {
+            throw new IOException("Truncated encrypted file");
+        }
+        try {
+            this.cipher = SegmentedCipher.open(masterKey, header);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot decrypt file key", e);
+        }
+        this.ciphertext = new byte[cipher.getCiphertextSegmentSize()];
+        this.plaintext = new byte[cipher.getSegmentSize()];
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !nextSegment()) {
+            return -1;
+        }
+        return plaintext[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !nextSegment()) {
+            return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(plaintext, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean nextSegment() throws IOException {
+        while (!lastSegmentRead) {
+            int length = 0;
+            if (lookahead >= 0) {
+                ciphertext[length++] = (byte) lookahead;
+                lookahead = -1;
+            }
+            length += readFully(ciphertext, length, ciphertext.length - length);
+            boolean last = length < ciphertext.length || (lookahead = in.read()) < 0;
+            try {
+                limit = cipher.decryptSegment(ciphertext, length, segmentIndex, last, plaintext);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Error decrypting segment " + segmentIndex, e);
+            }
+            position = 0;
+            segmentIndex++;
+            lastSegmentRead = last;
+            if (limit > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int readFully(byte[] b, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int n = in.read(b, off + total, len - total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
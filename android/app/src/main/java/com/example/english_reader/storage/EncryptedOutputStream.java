@@ -0,0 +1,89 @@
+package com.example.english_reader.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 按分段加密写入的输出流，内存占用只有一个分段的大小
+ */
+public class EncryptedOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final SegmentedCipher cipher;
+    private final byte[] plaintext;
+    private final byte[] ciphertext;
+    private int position;
+    private long segmentIndex;
+    private boolean closed;
+
+    public EncryptedOutputStream(OutputStream out, SecretKey masterKey) throws IOException {
+        this(out, masterKey, SegmentedCipher.DEFAULT_SEGMENT_SIZE);
+    }
+
+    public EncryptedOutputStream(OutputStream out, SecretKey masterKey, int segmentSize) throws IOException {
+        this.out = out;
+        try {
+            this.cipher = SegmentedCipher.create(masterKey, segmentSize);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Cannot initialize encryption", e);
+        }
+        this.plaintext = new byte[segmentSize];
+        this.ciphertext = new byte[cipher.getCiphertextSegmentSize()];
+        out.write(cipher.getHeader());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (len > 0) {
+            // 只有确认后面还有数据时才写出已满的分段，最后一段在close时写出
+            if (position == plaintext.length) {
+                writeSegment(false);
+            }
+            int n = Math.min(len, plaintext.length - position);
+            System.arraycopy(b, off, plaintext, position, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeSegment(true);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeSegment(boolean last) throws IOException {
+        try {
+            int length = cipher.encryptSegment(plaintext, position, segmentIndex, last, ciphertext);
+            out.write(ciphertext, 0, length);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Error encrypting segment " + segmentIndex, e);
+        }
+        segmentIndex++;
+        position = 0;
+    }
+}
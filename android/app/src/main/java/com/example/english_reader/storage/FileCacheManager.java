@@ -1,34 +1,61 @@
 package com.example.english_reader.storage;
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Build;
 import android.os.Environment;
 import android.provider.OpenableColumns;
 import android.util.Log;
 
 import androidx.core.content.FileProvider;
 
-import java.io.BufferedReader;
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class FileCacheManager {
     private static final String TAG = "FileCacheManager";
+    private static final String STORAGE_KEY_ALIAS = "english_reader_storage_key";
+    private static final String PREFS_NAME = "file_storage";
+    private static final String PREF_ENCRYPTION_ENABLED = "encryption_enabled";
+    private static final int PURGE_THREADS = 4;
     private final Context context;
+    private final FileStore fileStore;
+    private final LocalFileStore plainStore;
     private String currentPhotoPath;
+    private ThreadPoolExecutor purgeExecutor;
+    private ThreadPoolExecutor purgeWorkers;
+
+    /**
+     * 缓存清理回调，在后台线程上调用
+     */
+    public interface PurgeCallback extends CachePurger.ProgressListener {
+        void onComplete(CachePurger.Result result);
+
+        void onError(Exception e);
+    }
+
     public FileCacheManager(android.content.Context context) {
         this.context = context;
+        this.plainStore = new LocalFileStore(context.getFilesDir());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            // 始终通过加密存储读取，开关只决定新文件是否加密
+            EncryptedFileStore store = new EncryptedFileStore(context.getFilesDir(),
+                    new KeystoreKeySource(STORAGE_KEY_ALIAS));
+            store.setEncryptWrites(getPreferences().getBoolean(PREF_ENCRYPTION_ENABLED, false));
+            this.fileStore = store;
+        } else {
+            this.fileStore = plainStore;
+        }
     }
 
     /**
@@ -75,11 +102,7 @@ public class FileCacheManager {
         String scheme = uri.getScheme();
         try {
             if ("content".equals(scheme)) {
-                String fileName = getFileName(uri);
-                if (fileName == null || fileName.isEmpty()) {
-                    fileName = "content_" + System.currentTimeMillis();
-                }
-                return copyFileToInternalStorage(uri, fileName);
+                return copyFileToInternalStorage(uri, plainStore);
             } else if ("file".equals(scheme)) {
                 return uri.getPath();
             } else {
@@ -91,6 +114,15 @@ public class FileCacheManager {
         }
     }
 
+    /**
+     * 把选择的书籍复制到内部存储，返回文件路径。
+     * 书籍只由原生端读取，因此和其他文件一样通过fileStore保存，开启加密时以密文保存
+     */
+    public String copyBookFromUri(Uri uri) {
+        if (uri == null) return null;
+        return copyFileToInternalStorage(uri, fileStore);
+    }
+
     /**
      * 从Uri获取文件名
      */
@@ -125,26 +157,19 @@ public class FileCacheManager {
     }
 
     /**
-     * 将文件复制到内部存储
+     * 将文件复制到内部存储。图片路径会直接交给Flutter读取（如Image.file），需要使用plainStore以明文保存
      */
-    private String copyFileToInternalStorage(Uri uri, String fileName) {
-        try {
-            File outputFile = new File(context.getFilesDir(), fileName);
-            try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-                 BufferedInputStream bis = inputStream != null ? new BufferedInputStream(inputStream) : null;
-                 BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-                if (bis == null) {
-                    return null;
-                }
-                byte[] buffer = new byte[8192];
-                int bytesRead;
-                while ((bytesRead = bis.read(buffer)) != -1) {
-                    bos.write(buffer, 0, bytesRead);
-                }
-                bos.flush();
-                return outputFile.getAbsolutePath();
+    private String copyFileToInternalStorage(Uri uri, FileStore store) {
+        String fileName = getFileName(uri);
+        if (fileName == null || fileName.isEmpty()) {
+            fileName = "content_" + System.currentTimeMillis();
+        }
+        try (InputStream inputStream = context.getContentResolver().openInputStream(uri)) {
+            if (inputStream == null) {
+                return null;
             }
-        } catch (IOException e) {
+            return store.copyFrom(inputStream, fileName);
+        } catch (IOException | SecurityException e) {
             Log.e(TAG, "Error copying file: " + e.getMessage());
             return null;
         }
@@ -154,107 +179,121 @@ public class FileCacheManager {
      * 保存文本文件
      */
     public String saveTextFile(String content, String fileName) throws IOException {
-        File file = new File(context.getFilesDir(), fileName);
-        try (FileOutputStream fos = new FileOutputStream(file);
-             OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
-            writer.write(content);
-            writer.flush();
-            return file.getAbsolutePath();
-        }
+        return fileStore.saveTextFile(content, fileName);
     }
 
     /**
      * 读取文本文件
      */
     public String readTextFile(String fileName) throws IOException {
-        File file = new File(context.getFilesDir(), fileName);
-        StringBuilder content = new StringBuilder();
-        try (FileInputStream fis = new FileInputStream(file);
-             InputStreamReader isr = new InputStreamReader(fis, StandardCharsets.UTF_8);
-             BufferedReader reader = new BufferedReader(isr)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n");
+        return fileStore.readTextFile(fileName);
+    }
+
+    /**
+     * 获取当前使用的文件存储
+     */
+    public FileStore getFileStore() {
+        return fileStore;
+    }
+
+    /**
+     * 读取文件中指定范围的字节（加密文件只解密涉及的分段）
+     */
+    public byte[] readFileRange(String fileName, long offset, int length) throws IOException {
+        return fileStore.readRange(fileName, offset, length);
+    }
+
+    /**
+     * 开启或关闭加密存储，设置会保存下来，下次启动时恢复。
+     * 只影响之后保存的文件，已有的加密文件和明文文件都照常读取
+     */
+    public boolean setEncryptionEnabled(boolean enabled) {
+        if (!(fileStore instanceof EncryptedFileStore)) {
+            if (enabled) {
+                Log.w(TAG, "Encrypted storage requires Android 6.0 or above");
             }
-            return content.toString();
+            return !enabled;
         }
+        ((EncryptedFileStore) fileStore).setEncryptWrites(enabled);
+        getPreferences().edit().putBoolean(PREF_ENCRYPTION_ENABLED, enabled).apply();
+        return true;
+    }
+
+    /**
+     * 是否开启了加密存储
+     */
+    public boolean isEncryptionEnabled() {
+        return fileStore instanceof EncryptedFileStore && ((EncryptedFileStore) fileStore).isEncryptWrites();
+    }
+
+    private SharedPreferences getPreferences() {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
     }
 
     /**
      * 检查文件是否存在
      */
     public boolean fileExists(String fileName) {
-        File file = new File(context.getFilesDir(), fileName);
-        return file.exists();
+        return fileStore.fileExists(fileName);
     }
 
     /**
      * 删除文件
      */
     public boolean deleteFile(String fileName) {
-        File file = new File(context.getFilesDir(), fileName);
-        return file.exists() && file.delete();
+        return fileStore.deleteFile(fileName);
     }
 
     /**
      * 获取缓存大小
      */
     public long getCacheSize() {
-        return getDirSize(context.getCacheDir()) + getDirSize(context.getExternalCacheDir());
+        return DirectoryUtils.getDirSize(context.getCacheDir())
+                + DirectoryUtils.getDirSize(context.getExternalCacheDir());
     }
 
     /**
-     * 清除缓存
+     * 是否支持按时间或大小部分清理缓存（需要Android 8.0及以上）
      */
-    public boolean clearCache() {
-        boolean result = deleteDir(context.getCacheDir());
-        if (context.getExternalCacheDir() != null) {
-            result &= deleteDir(context.getExternalCacheDir());
-        }
-        return result;
+    public boolean supportsPartialPurge() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O;
     }
 
     /**
-     * 获取目录大小
+     * 在后台线程清理缓存，通过回调报告进度和实际释放的字节数
      */
-    private long getDirSize(File dir) {
-        if (dir == null || !dir.exists()) {
-            return 0;
+    public void purgeCache(CachePurger.Request request, PurgeCallback callback) {
+        if (!request.isDeleteAll() && !supportsPartialPurge()) {
+            callback.onError(new IOException("Partial purge requires Android 8.0 or above"));
+            return;
         }
-        
-        long size = 0;
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isFile()) {
-                    size += file.length();
+        ensurePurgeExecutors();
+        purgeExecutor.execute(() -> {
+            List<File> roots = Arrays.asList(context.getCacheDir(), context.getExternalCacheDir());
+            try {
+                CachePurger.Result result;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    result = new CachePurger(purgeWorkers, PURGE_THREADS).purge(roots, request, callback);
                 } else {
-                    size += getDirSize(file);
+                    // 低版本系统没有java.nio.file，退回到逐个删除
+                    result = DirectoryUtils.deleteDirs(roots, callback);
                 }
+                callback.onComplete(result);
+            } catch (Exception e) {
+                Log.e(TAG, "Error purging cache: " + e.getMessage());
+                callback.onError(e);
             }
-        }
-        return size;
+        });
     }
 
-    /**
-     * 删除目录
-     */
-    private boolean deleteDir(File dir) {
-        if (dir == null || !dir.exists() || !dir.isDirectory()) {
-            return false;
-        }
-        
-        boolean result = true;
-        File[] files = dir.listFiles();
-        if (files != null) {
-            for (File file : files) {
-                if (file.isFile()) {
-                    result &= file.delete();
-                } else {
-                    result &= deleteDir(file);
-                }
-            }
+    private synchronized void ensurePurgeExecutors() {
+        if (purgeExecutor == null) {
+            // 空闲时线程自动退出
+            purgeExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            purgeExecutor.allowCoreThreadTimeOut(true);
+            purgeWorkers = new ThreadPoolExecutor(PURGE_THREADS, PURGE_THREADS, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            purgeWorkers.allowCoreThreadTimeOut(true);
         }
-        return result;
     }
-}
\ No newline at end of file
+}
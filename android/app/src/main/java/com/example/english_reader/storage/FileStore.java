@@ -0,0 +1,57 @@
+package com.example.english_reader.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 不依赖Android Context的文件存储接口，便于在JVM上测试和基准测试
+ */
+public interface FileStore {
+
+    /**
+     * 保存文本文件，返回文件绝对路径
+     */
+    String saveTextFile(String content, String fileName) throws IOException;
+
+    /**
+     * 读取文本文件
+     */
+    String readTextFile(String fileName) throws IOException;
+
+    /**
+     * 读取文件内容中[offset, offset + length)范围的字节，超出文件末尾的部分会被截断
+     */
+    byte[] readRange(String fileName, long offset, int length) throws IOException;
+
+    /**
+     * 将输入流复制为存储中的文件，返回文件绝对路径
+     */
+    String copyFrom(InputStream inputStream, String fileName) throws IOException;
+
+    /**
+     * 打开文件的输入流
+     */
+    InputStream openInputStream(String fileName) throws IOException;
+
+    /**
+     * 打开文件的输出流，已存在的文件会被覆盖
+     */
+    OutputStream openOutputStream(String fileName) throws IOException;
+
+    /**
+     * 获取以明文保存在本地的文件，便于随机访问；文件已加密时返回null
+     */
+    File getLocalFile(String fileName) throws IOException;
+
+    /**
+     * 检查文件是否存在
+     */
+    boolean fileExists(String fileName);
+
+    /**
+     * 删除文件
+     */
+    boolean deleteFile(String fileName);
+}
@@ -0,0 +1,16 @@
+package com.example.english_reader.storage;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 加密存储使用的主密钥来源。Android上由Keystore提供，JVM测试中可直接传入内存中的密钥
+ */
+public interface KeySource {
+
+    /**
+     * 获取用于包装文件数据密钥的AES主密钥
+     */
+    SecretKey getKey() throws GeneralSecurityException;
+}
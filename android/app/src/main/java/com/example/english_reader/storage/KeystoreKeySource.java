@@ -0,0 +1,57 @@
+package com.example.english_reader.storage;
+
+import android.os.Build;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import androidx.annotation.RequiresApi;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * 从Android Keystore获取主密钥，不存在时自动生成
+ */
+@RequiresApi(api = Build.VERSION_CODES.M)
+public class KeystoreKeySource implements KeySource {
+    private static final String ANDROID_KEYSTORE = "AndroidKeyStore";
+    private static final int KEY_SIZE = 256;
+    private final String alias;
+    private SecretKey key;
+
+    public KeystoreKeySource(String alias) {
+        this.alias = alias;
+    }
+
+    @Override
+    public synchronized SecretKey getKey() throws GeneralSecurityException {
+        if (key != null) {
+            return key;
+        }
+        KeyStore keyStore = KeyStore.getInstance(ANDROID_KEYSTORE);
+        try {
+            keyStore.load(null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException("Cannot load Android Keystore", e);
+        }
+        KeyStore.Entry entry = keyStore.getEntry(alias, null);
+        if (entry instanceof KeyStore.SecretKeyEntry) {
+            key = ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+        } else {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES, ANDROID_KEYSTORE);
+            keyGenerator.init(new KeyGenParameterSpec.Builder(
+                    alias,
+                    KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT)
+                    .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+                    .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+                    .setKeySize(KEY_SIZE)
+                    .build());
+            key = keyGenerator.generateKey();
+        }
+        return key;
+    }
+}
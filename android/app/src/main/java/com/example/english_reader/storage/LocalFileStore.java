@@ -0,0 +1,147 @@
+package com.example.english_reader.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基于本地目录的明文文件存储。无法解密，读取加密格式的文件时抛出IOException
+ */
+public class LocalFileStore implements FileStore {
+    private static final int BUFFER_SIZE = 8192;
+    private final File baseDir;
+
+    public LocalFileStore(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    public File getBaseDir() {
+        return baseDir;
+    }
+
+    @Override
+    public String saveTextFile(String content, String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        try (FileOutputStream fos = new FileOutputStream(file);
+             OutputStreamWriter writer = new OutputStreamWriter(fos, StandardCharsets.UTF_8)) {
+            writer.write(content);
+            writer.flush();
+            return file.getAbsolutePath();
+        }
+    }
+
+    @Override
+    public String readTextFile(String fileName) throws IOException {
+        File file = plaintextFile(fileName);
+        StringBuilder content = new StringBuilder();
+        try (FileInputStream fis = new FileInputStream(file);
+             InputStreamReader isr = new InputStreamReader(fis, StandardCharsets.UTF_8);
+             BufferedReader reader = new BufferedReader(isr)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content.append(line).append("\n");
+            }
+            return content.toString();
+        }
+    }
+
+    @Override
+    public byte[] readRange(String fileName, long offset, int length) throws IOException {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid range: " + offset + ", " + length);
+        }
+        File file = plaintextFile(fileName);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return readRange(channel, offset, length);
+        }
+    }
+
+    @Override
+    public String copyFrom(InputStream inputStream, String fileName) throws IOException {
+        File outputFile = new File(baseDir, fileName);
+        try (BufferedInputStream bis = new BufferedInputStream(inputStream);
+             BufferedOutputStream bos = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int bytesRead;
+            while ((bytesRead = bis.read(buffer)) != -1) {
+                bos.write(buffer, 0, bytesRead);
+            }
+            bos.flush();
+            return outputFile.getAbsolutePath();
+        }
+    }
+
+    @Override
+    public InputStream openInputStream(String fileName) throws IOException {
+        return new FileInputStream(plaintextFile(fileName));
+    }
+
+    @Override
+    public OutputStream openOutputStream(String fileName) throws IOException {
+        return new FileOutputStream(new File(baseDir, fileName));
+    }
+
+    @Override
+    public File getLocalFile(String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        return SegmentedCipher.isEncrypted(file) ? null : file;
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        File file = new File(baseDir, fileName);
+        return file.exists();
+    }
+
+    @Override
+    public boolean deleteFile(String fileName) {
+        File file = new File(baseDir, fileName);
+        return file.exists() && file.delete();
+    }
+
+    /**
+     * 加密文件按明文读取只会得到密文，直接拒绝
+     */
+    private File plaintextFile(String fileName) throws IOException {
+        File file = new File(baseDir, fileName);
+        if (SegmentedCipher.isEncrypted(file)) {
+            throw new IOException("Encrypted file cannot be read without a key: " + fileName);
+        }
+        return file;
+    }
+
+    static byte[] readRange(FileChannel channel, long offset, int length) throws IOException {
+        long end = Math.min(offset + length, channel.size());
+        if (offset >= end) {
+            return new byte[0];
+        }
+        byte[] result = new byte[(int) (end - offset)];
+        readFully(channel, ByteBuffer.wrap(result), offset);
+        return result;
+    }
+
+    static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + total);
+            if (n < 0) {
+                break;
+            }
+            total += n;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.english_reader.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * 分段AES-GCM加密的文件格式
+ *
+ * 文件头（固定长度）：魔数(4) | 分段大小(4) | nonce前缀(7) | 包装IV(12) | 包装后的数据密钥(48)
+ * 之后是若干密文分段，每段为 明文(最多segmentSize字节) + GCM标签(16字节)。
+ * 每个文件使用随机的数据密钥，由主密钥以AES-GCM包装后存入文件头，因此分段加解密不需要访问Keystore。
+ * 分段nonce为 nonce前缀(7) | 分段序号(4) | 是否最后一段(1)，可以防止分段被重排或截断。
+ */
+final class SegmentedCipher {
+    static final int DEFAULT_SEGMENT_SIZE = 64 * 1024;
+    static final int TAG_SIZE = 16;
+
+    private static final byte[] MAGIC = {'E', 'R', 'S', '1'};
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int DATA_KEY_SIZE = 32;
+    private static final int NONCE_PREFIX_SIZE = 7;
+    private static final int NONCE_SIZE = 12;
+    private static final int WRAP_IV_SIZE = 12;
+    private static final int WRAPPED_KEY_SIZE = DATA_KEY_SIZE + TAG_SIZE;
+    private static final int PREFIX_SIZE = MAGIC.length + 4 + NONCE_PREFIX_SIZE;
+    static final int HEADER_SIZE = PREFIX_SIZE + WRAP_IV_SIZE + WRAPPED_KEY_SIZE;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final byte[] header;
+    private final int segmentSize;
+    private final SecretKey dataKey;
+    private final byte[] nonce = new byte[NONCE_SIZE];
+    private final Cipher cipher;
+
+    private SegmentedCipher(byte[] header, int segmentSize, SecretKey dataKey) throws GeneralSecurityException {
+        this.header = header;
+        this.segmentSize = segmentSize;
+        this.dataKey = dataKey;
+        this.cipher = Cipher.getInstance(TRANSFORMATION);
+        System.arraycopy(header, MAGIC.length + 4, nonce, 0, NONCE_PREFIX_SIZE);
+    }
+
+    /**
+     * 为新文件生成数据密钥和文件头
+     */
+    static SegmentedCipher create(SecretKey masterKey, int segmentSize) throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(DATA_KEY_SIZE * 8, RANDOM);
+        SecretKey dataKey = keyGenerator.generateKey();
+
+        byte[] header = new byte[HEADER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        buffer.put(MAGIC).putInt(segmentSize);
+        byte[] noncePrefix = new byte[NONCE_PREFIX_SIZE];
+        RANDOM.nextBytes(noncePrefix);
+        buffer.put(noncePrefix);
+
+        // 包装IV由主密钥的提供者生成（Android Keystore不允许调用方指定加密IV）
+        Cipher wrapCipher = Cipher.getInstance(TRANSFORMATION);
+        wrapCipher.init(Cipher.ENCRYPT_MODE, masterKey);
+        wrapCipher.updateAAD(header, 0, PREFIX_SIZE);
+        byte[] wrappedKey = wrapCipher.doFinal(dataKey.getEncoded());
+        byte[] wrapIv = wrapCipher.getIV();
+        if (wrapIv.length != WRAP_IV_SIZE || wrappedKey.length != WRAPPED_KEY_SIZE) {
+            throw new GeneralSecurityException("Unexpected key wrapping output");
+        }
+        buffer.put(wrapIv).put(wrappedKey);
+        return new SegmentedCipher(header, segmentSize, dataKey);
+    }
+
+    /**
+     * 解析已有文件的文件头并解包数据密钥
+     */
+    static SegmentedCipher open(SecretKey masterKey, byte[] header) throws IOException, GeneralSecurityException {
+        if (!isEncrypted(header)) {
+            throw new IOException("Not an encrypted file");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        buffer.position(MAGIC.length);
+        int segmentSize = buffer.getInt();
+        if (segmentSize <= 0) {
+            throw new IOException("Invalid segment size: " + segmentSize);
+        }
+
+        Cipher wrapCipher = Cipher.getInstance(TRANSFORMATION);
+        wrapCipher.init(Cipher.DECRYPT_MODE, masterKey,
+                new GCMParameterSpec(TAG_SIZE * 8, header, PREFIX_SIZE, WRAP_IV_SIZE));
+        wrapCipher.updateAAD(header, 0, PREFIX_SIZE);
+        byte[] keyBytes = wrapCipher.doFinal(header, PREFIX_SIZE + WRAP_IV_SIZE, WRAPPED_KEY_SIZE);
+        SecretKey dataKey = new SecretKeySpec(keyBytes, "AES");
+        Arrays.fill(keyBytes, (byte) 0);
+        return new SegmentedCipher(header.clone(), segmentSize, dataKey);
+    }
+
+    /**
+     * 判断文件头是否为加密格式
+     */
+    static boolean isEncrypted(byte[] header) {
+        if (header == null || header.length < HEADER_SIZE) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 判断文件是否为加密格式
+     */
+    static boolean isEncrypted(File file) throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.length() < header.length) {
+                return false;
+            }
+            raf.readFully(header);
+        }
+        return isEncrypted(header);
+    }
+
+    byte[] getHeader() {
+        return header;
+    }
+
+    int getSegmentSize() {
+        return segmentSize;
+    }
+
+    int getCiphertextSegmentSize() {
+        return segmentSize + TAG_SIZE;
+    }
+
+    /**
+     * 第index个密文分段在文件中的偏移量
+     */
+    long segmentOffset(long index) {
+        return HEADER_SIZE + index * getCiphertextSegmentSize();
+    }
+
+    /**
+     * 根据密文文件长度计算分段数量
+     */
+    long segmentCount(long fileLength) throws IOException {
+        long ciphertextLength = fileLength - HEADER_SIZE;
+        if (ciphertextLength < TAG_SIZE) {
+            throw new IOException("Truncated encrypted file");
+        }
+        return (ciphertextLength + getCiphertextSegmentSize() - 1) / getCiphertextSegmentSize();
+    }
+
+    /**
+     * 根据密文文件长度计算明文长度
+     */
+    long plaintextSize(long fileLength) throws IOException {
+        long segments = segmentCount(fileLength);
+        long lastSize = fileLength - segmentOffset(segments - 1) - TAG_SIZE;
+        if (lastSize < 0) {
+            throw new IOException("Truncated encrypted file");
+        }
+        return (segments - 1) * segmentSize + lastSize;
+    }
+
+    /**
+     * 加密一个分段，返回写入output的字节数
+     */
+    int encryptSegment(byte[] input, int length, long index, boolean last, byte[] output)
+            throws GeneralSecurityException {
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey, segmentNonce(index, last));
+        return cipher.doFinal(input, 0, length, output, 0);
+    }
+
+    /**
+     * 解密一个分段，返回写入output的字节数
+     */
+    int decryptSegment(byte[] input, int length, long index, boolean last, byte[] output)
+            throws GeneralSecurityException {
+        cipher.init(Cipher.DECRYPT_MODE, dataKey, segmentNonce(index, last));
+        return cipher.doFinal(input, 0, length, output, 0);
+    }
+
+    private GCMParameterSpec segmentNonce(long index, boolean last) throws GeneralSecurityException {
+        if (index < 0 || index > 0xFFFFFFFFL) {
+            throw new GeneralSecurityException("Too many segments");
+        }
+        nonce[NONCE_PREFIX_SIZE] = (byte) (index >>> 24);
+        nonce[NONCE_PREFIX_SIZE + 1] = (byte) (index >>> 16);
+        nonce[NONCE_PREFIX_SIZE + 2] = (byte) (index >>> 8);
+        nonce[NONCE_PREFIX_SIZE + 3] = (byte) index;
+        nonce[NONCE_SIZE - 1] = (byte) (last ? 1 : 0);
+        return new GCMParameterSpec(TAG_SIZE * 8, nonce);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BookManifestTest {
+
+    @Test
+    public void toJsonWritesChapters() {
+        BookManifest manifest = new BookManifest("book.txt", "book.txt.chapters.txt", BookFormat.TXT, "Book",
+                Arrays.asList(new BookManifest.Chapter("Chapter 1", 0, 10),
+                        new BookManifest.Chapter("Chapter 2", 10, 5000000000L)));
+        assertEquals("{\"version\":1,\"source\":\"book.txt\",\"content\":\"book.txt.chapters.txt\","
+                + "\"format\":\"TXT\",\"title\":\"Book\",\"chapters\":["
+                + "{\"title\":\"Chapter 1\",\"offset\":0,\"length\":10},"
+                + "{\"title\":\"Chapter 2\",\"offset\":10,\"length\":5000000000}]}", manifest.toJson());
+    }
+
+    @Test
+    public void toJsonEscapesStrings() {
+        BookManifest manifest = new BookManifest("a\"b\\c.epub", "c", BookFormat.EPUB, "Line\nTab\t\u0001 第一",
+                Collections.<BookManifest.Chapter>emptyList());
+        assertEquals("{\"version\":1,\"source\":\"a\\\"b\\\\c.epub\",\"content\":\"c\",\"format\":\"EPUB\","
+                + "\"title\":\"Line\\nTab\\t\\u0001 第一\",\"chapters\":[]}", manifest.toJson());
+    }
+
+    @Test
+    public void toJsonWritesNullTitle() {
+        BookManifest manifest = new BookManifest("a", "b", BookFormat.HTML, null,
+                Collections.<BookManifest.Chapter>emptyList());
+        assertEquals("{\"version\":1,\"source\":\"a\",\"content\":\"b\",\"format\":\"HTML\","
+                + "\"title\":null,\"chapters\":[]}", manifest.toJson());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ChapterWriterTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ChapterWriter writer = new ChapterWriter(out);
+
+    private List<BookManifest.Chapter> writeTxt(String text) throws Exception {
+        new TxtParser().parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), block -> {
+            try {
+                writer.accept(block);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        return writer.finish();
+    }
+
+    private static List<String> titles(List<BookManifest.Chapter> chapters) {
+        List<String> titles = new ArrayList<>();
+        for (BookManifest.Chapter chapter : chapters) {
+            titles.add(chapter.getTitle());
+        }
+        return titles;
+    }
+
+    private String chapterText(BookManifest.Chapter chapter) {
+        byte[] bytes = out.toByteArray();
+        return new String(bytes, (int) chapter.getOffset(), (int) chapter.getLength(), StandardCharsets.UTF_8);
+    }
+
+    private static String longParagraph(int index) {
+        StringBuilder paragraph = new StringBuilder("Paragraph ").append(index).append(':');
+        while (paragraph.length() < 100 * 1024) {
+            paragraph.append(" words");
+        }
+        return paragraph.toString();
+    }
+
+    @Test
+    public void chaptersFollowHeadingsWithByteOffsets() throws Exception {
+        List<BookManifest.Chapter> chapters = writeTxt(
+                "Chapter 1\n\nFirst   paragraph.\n\nSecond — paragraph.\n\nChapter 2\n\n第三段。\n");
+
+        assertEquals(Arrays.asList("Chapter 1", "Chapter 2"), titles(chapters));
+        assertEquals(0, chapters.get(0).getOffset());
+        assertEquals(chapters.get(0).getLength(), chapters.get(1).getOffset());
+        assertEquals(out.size(), chapters.get(1).getOffset() + chapters.get(1).getLength());
+        assertEquals("First paragraph.\n\nSecond — paragraph.\n\n", chapterText(chapters.get(0)));
+        assertEquals("第三段。\n\n", chapterText(chapters.get(1)));
+    }
+
+    @Test
+    public void consecutiveHeadingsAreMerged() throws Exception {
+        writer.accept(TextBlock.heading("Chapter 1"));
+        writer.accept(TextBlock.heading("The Beginning"));
+        writer.accept(TextBlock.paragraph("Text."));
+        assertEquals(Arrays.asList("Chapter 1 The Beginning"), titles(writer.finish()));
+    }
+
+    @Test
+    public void untitledBookIsOneChapter() throws Exception {
+        assertEquals(Arrays.asList("Chapter 1"), titles(writeTxt("Just some text.\n\nMore text.\n")));
+    }
+
+    @Test
+    public void continuationPartsShareTheChapterTitle() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            writer.accept(TextBlock.paragraph(longParagraph(i)));
+        }
+        List<BookManifest.Chapter> chapters = writer.finish();
+
+        assertEquals(Arrays.asList("Chapter 1", "Chapter 1 (2)", "Chapter 1 (3)", "Chapter 1 (4)"),
+                titles(chapters));
+        long offset = 0;
+        for (BookManifest.Chapter chapter : chapters) {
+            assertEquals(offset, chapter.getOffset());
+            assertTrue(chapter.getLength() <= ChapterWriter.MAX_CHAPTER_BYTES + 101 * 1024);
+            offset += chapter.getLength();
+        }
+        assertEquals(out.size(), offset);
+    }
+
+    @Test
+    public void splitHeadedChapterKeepsItsTitle() throws Exception {
+        writer.accept(TextBlock.heading("Chapter 7"));
+        for (int i = 0; i < 7; i++) {
+            writer.accept(TextBlock.paragraph(longParagraph(i)));
+        }
+        writer.accept(TextBlock.heading("Chapter 8"));
+        writer.accept(TextBlock.paragraph("End."));
+        assertEquals(Arrays.asList("Chapter 7", "Chapter 7 (2)", "Chapter 8"), titles(writer.finish()));
+    }
+
+    @Test
+    public void textBeforeFirstHeadingIsPreface() throws Exception {
+        List<BookManifest.Chapter> chapters = writeTxt("My Book\n\nChapter 1\n\nIt begins.\n\nChapter 2\n\nIt ends.\n");
+        assertEquals(Arrays.asList("Preface", "Chapter 1", "Chapter 2"), titles(chapters));
+        assertEquals("My Book\n\n", chapterText(chapters.get(0)));
+    }
+
+    @Test
+    public void textBeforeFirstHeadingUsesBookTitle() throws Exception {
+        writer.accept(TextBlock.title("My Book"));
+        writer.accept(TextBlock.paragraph("By Someone"));
+        writer.accept(TextBlock.heading("Chapter 1"));
+        writer.accept(TextBlock.paragraph("It begins."));
+        assertEquals(Arrays.asList("My Book", "Chapter 1"), titles(writer.finish()));
+    }
+
+    @Test
+    public void untitledSectionsAreNumberedByChapter() throws Exception {
+        writer.accept(TextBlock.SECTION_BREAK);
+        writer.accept(TextBlock.heading("Introduction"));
+        writer.accept(TextBlock.paragraph("Intro."));
+        writer.accept(TextBlock.SECTION_BREAK);
+        writer.accept(TextBlock.paragraph("Untitled section."));
+        writer.accept(TextBlock.SECTION_BREAK);
+        writer.accept(TextBlock.SECTION_BREAK);
+        writer.accept(TextBlock.paragraph("Another one."));
+        assertEquals(Arrays.asList("Introduction", "Chapter 2", "Chapter 3"), titles(writer.finish()));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class EpubParserTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String CONTAINER = "<?xml version=\"1.0\"?>"
+            + "<container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">"
+            + "<rootfiles><rootfile full-path=\"OEBPS/content.opf\" media-type=\"application/oebps-package+xml\"/>"
+            + "</rootfiles></container>";
+
+    private static final String OPF = "<?xml version=\"1.0\"?>"
+            + "<package xmlns=\"http://www.idpf.org/2007/opf\" version=\"3.0\">"
+            + "<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\"><dc:title>Spine Book</dc:title></metadata>"
+            + "<manifest>"
+            + "<item id=\"nav\" href=\"nav.xhtml\" media-type=\"application/xhtml+xml\" properties=\"nav\"/>"
+            + "<item id=\"cover\" href=\"Text/cover.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "<item id=\"legal\" href=\"Text/legal.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "<item href='Text/chapter%20two.xhtml' id='c2' media-type='application/xhtml+xml'/>"
+            + "<item id=\"c1\" href=\"Text/ch1.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "<item id=\"c3\" href=\"Text/ch3.xhtml#start\" media-type=\"application/xhtml+xml\"/>"
+            + "<item id=\"notes\" href=\"Text/notes.xhtml\" media-type=\"application/xhtml+xml\"/>"
+            + "<item id=\"img\" href=\"Images/a.png\" media-type=\"image/png\"/>"
+            + "</manifest>"
+            + "<spine><itemref idref=\"cover\"/><itemref idref=\"nav\"/><itemref idref=\"legal\"/>"
+            + "<itemref idref=\"c1\"/><itemref idref=\"c2\"/><itemref idref=\"notes\" linear=\"no\"/>"
+            + "<itemref idref=\"c3\"/><itemref idref=\"img\"/></spine>"
+            + "<guide><reference type=\"copyright-page\" href=\"Text/legal.xhtml\" title=\"Legal\"/></guide>"
+            + "</package>";
+
+    private static String chapter(String title, String text) {
+        return "<html><head><title>ignored</title></head><body><h1>" + title + "</h1><p>" + text + "</p></body></html>";
+    }
+
+    private File writeEpub(String[]... entries) throws Exception {
+        File file = folder.newFile("book.epub");
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            for (String[] entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry[0]));
+                zip.write(entry[1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static List<String> describe(List<TextBlock> blocks) {
+        List<String> result = new ArrayList<>();
+        for (TextBlock block : blocks) {
+            result.add(block.type == TextBlock.Type.SECTION
+                    ? "SECTION" : block.type + ":" + TextNormalizer.normalize(block.text));
+        }
+        return result;
+    }
+
+    private File shuffledEpub() throws Exception {
+        // 条目顺序与spine顺序不同
+        return writeEpub(
+                new String[] {"mimetype", "application/epub+zip"},
+                new String[] {"OEBPS/Text/ch3.xhtml", chapter("Three", "third")},
+                new String[] {"OEBPS/Text/notes.xhtml", chapter("Notes", "notes")},
+                new String[] {"OEBPS/Text/chapter two.xhtml", chapter("Two", "second")},
+                new String[] {"OEBPS/nav.xhtml", chapter("Contents", "toc")},
+                new String[] {"OEBPS/content.opf", OPF},
+                new String[] {"OEBPS/Text/legal.xhtml", chapter("Copyright", "legal")},
+                new String[] {"OEBPS/Text/cover.xhtml", chapter("Cover", "cover")},
+                new String[] {"OEBPS/Text/ch1.xhtml", chapter("One", "first")},
+                new String[] {"META-INF/container.xml", CONTAINER});
+    }
+
+    private static final List<String> EXPECTED = Arrays.asList(
+            "TITLE:Spine Book",
+            "SECTION", "HEADING:One", "PARAGRAPH:first",
+            "SECTION", "HEADING:Two", "PARAGRAPH:second",
+            "SECTION", "HEADING:Three", "PARAGRAPH:third");
+
+    @Test
+    public void followsSpineOrderAndSkipsFrontMatter() throws Exception {
+        List<TextBlock> blocks = new ArrayList<>();
+        new EpubParser().parse(shuffledEpub(), blocks::add);
+        assertEquals(EXPECTED, describe(blocks));
+    }
+
+    @Test
+    public void parsesFromStream() throws Exception {
+        List<TextBlock> blocks = new ArrayList<>();
+        try (InputStream in = new FileInputStream(shuffledEpub())) {
+            new EpubParser().parse(in, blocks::add);
+        }
+        assertEquals(EXPECTED, describe(blocks));
+    }
+
+    @Test
+    public void deletesLeftoverTempFiles() throws Exception {
+        File dir = folder.newFolder("tmp");
+        File leftover = File.createTempFile("ingest", ".epub", dir);
+        File other = new File(dir, "ingest.txt");
+        assertTrue(other.createNewFile());
+
+        assertEquals(1, EpubParser.deleteTempFiles(dir));
+        assertFalse(leftover.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void fallsBackToArchiveOrderWithoutPackage() throws Exception {
+        File file = writeEpub(
+                new String[] {"mimetype", "application/epub+zip"},
+                new String[] {"b.xhtml", chapter("B", "b")},
+                new String[] {"toc.xhtml", chapter("Contents", "toc")},
+                new String[] {"a.html", chapter("A", "a")});
+        List<TextBlock> blocks = new ArrayList<>();
+        new EpubParser().parse(file, blocks::add);
+        assertEquals(Arrays.asList(
+                "SECTION", "HEADING:B", "PARAGRAPH:b",
+                "SECTION", "HEADING:A", "PARAGRAPH:a"), describe(blocks));
+    }
+
+    @Test
+    public void resolvesRelativeHrefs() {
+        assertEquals("OEBPS/Text/a b.xhtml", EpubParser.resolve("OEBPS/", "Text/a%20b.xhtml#x"));
+        assertEquals("Text/a.xhtml", EpubParser.resolve("OEBPS/", "../Text/./a.xhtml"));
+        assertEquals("a.xhtml", EpubParser.resolve("", "a.xhtml"));
+        assertEquals("a+b.xhtml", EpubParser.resolve("", "a+b.xhtml"));
+    }
+}
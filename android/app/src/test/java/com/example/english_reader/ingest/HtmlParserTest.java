@@ -0,0 +1,106 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class HtmlParserTest {
+
+    private static List<TextBlock> parse(String html) throws Exception {
+        return parse(html.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<TextBlock> parse(byte[] html) throws Exception {
+        List<TextBlock> blocks = new ArrayList<>();
+        new HtmlParser().parse(new ByteArrayInputStream(html), blocks::add);
+        return blocks;
+    }
+
+    private static List<String> normalized(List<TextBlock> blocks) {
+        List<String> result = new ArrayList<>();
+        for (TextBlock block : blocks) {
+            result.add(block.type + ":" + TextNormalizer.normalize(block.text));
+        }
+        return result;
+    }
+
+    @Test
+    public void titleHeadingsAndParagraphs() throws Exception {
+        List<TextBlock> blocks = parse("<!DOCTYPE html><html><head><title>My Book</title></head><body>"
+                + "<h1>Chapter 1</h1><h2>The <em>Start</em></h2><p>First paragraph.</p>"
+                + "<div>Second<br/>line</div></body></html>");
+        assertEquals(Arrays.asList(
+                "TITLE:My Book",
+                "HEADING:Chapter 1",
+                "HEADING:The Start",
+                "PARAGRAPH:First paragraph.",
+                "PARAGRAPH:Second",
+                "PARAGRAPH:line"), normalized(blocks));
+    }
+
+    @Test
+    public void decodesEntities() throws Exception {
+        List<TextBlock> blocks = parse("<p>Tom &amp; Jerry &mdash; &#8220;hi&#x201D; &lt;b&gt; &unknown; AT&T</p>"
+                + "<p>tail &amp</p>");
+        assertEquals(Arrays.asList(
+                "PARAGRAPH:Tom & Jerry — “hi” <b> &unknown; AT&T",
+                "PARAGRAPH:tail &amp"), normalized(blocks));
+    }
+
+    @Test
+    public void skipsScriptAndStyle() throws Exception {
+        List<TextBlock> blocks = parse("<html><head><style>p { color: red; }</style></head><body>"
+                + "<script>if (a < b && c > d) { document.write('<p>no</p>'); }</script>"
+                + "<p>Visible</p><SCRIPT type=\"text/javascript\">x < 1</SCRIPT><p>Also visible</p>"
+                + "<!-- <p>comment</p> --></body></html>");
+        assertEquals(Arrays.asList("PARAGRAPH:Visible", "PARAGRAPH:Also visible"), normalized(blocks));
+
+        StringBuilder longComment = new StringBuilder("<p>Before</p><!--");
+        for (int i = 0; i < 3000; i++) {
+            longComment.append(i % 50 == 0 ? "- > -" : "x");
+        }
+        longComment.append("--><h1>Chapter 1</h1><p>After comment</p><!---->");
+        assertEquals(Arrays.asList("PARAGRAPH:Before", "HEADING:Chapter 1", "PARAGRAPH:After comment"),
+                normalized(parse(longComment.toString())));
+    }
+
+    @Test
+    public void splitsOverlongTextWithoutWhitespace() throws Exception {
+        StringBuilder html = new StringBuilder("<p>");
+        int length = 5 * BookParser.MAX_PARAGRAPH_CHARS;
+        for (int i = 0; i < length; i++) {
+            html.append('字');
+        }
+        html.append("</p>");
+
+        List<TextBlock> blocks = parse(html.toString());
+        int total = 0;
+        for (TextBlock block : blocks) {
+            assertTrue(block.text.length() <= 2 * BookParser.MAX_PARAGRAPH_CHARS);
+            total += block.text.length();
+        }
+        assertTrue(blocks.size() >= 3);
+        assertEquals(length, total);
+    }
+
+    @Test
+    public void usesDeclaredCharset() throws Exception {
+        String body = "<body><h1>第一章</h1><p>你好</p></body></html>";
+        List<String> expected = Arrays.asList("HEADING:第一章", "PARAGRAPH:你好");
+        assertEquals(expected, normalized(parse(
+                ("<html><head><meta charset=\"gb2312\"></head>" + body).getBytes("GBK"))));
+        assertEquals(expected, normalized(parse(("<html><head><meta http-equiv=\"Content-Type\" "
+                + "content=\"text/html; charset=GBK\"></head>" + body).getBytes("GBK"))));
+        assertEquals(expected, normalized(parse(("<?xml version=\"1.0\" encoding=\"Big5\"?><html>" + body)
+                .getBytes("Big5"))));
+        // 没有声明时按文件头是否为合法的UTF-8判断
+        assertEquals(expected, normalized(parse(("<html>" + body).getBytes("GBK"))));
+    }
+}
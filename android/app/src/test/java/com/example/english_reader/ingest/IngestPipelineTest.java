@@ -0,0 +1,245 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.english_reader.storage.EncryptedFileStore;
+import com.example.english_reader.storage.LocalFileStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+public class IngestPipelineTest {
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private IngestPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        pipeline = new IngestPipeline(1, 1);
+    }
+
+    @After
+    public void tearDown() {
+        pipeline.shutdown();
+    }
+
+    /**
+     * 通过流读取原文并统计读取的字节数；写入阶段打开章节文件前等待gate打开
+     */
+    private static final class GatedStore extends LocalFileStore {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final CountDownLatch writerWaiting = new CountDownLatch(1);
+        final AtomicLong bytesRead = new AtomicLong();
+
+        GatedStore(File baseDir) {
+            super(baseDir);
+        }
+
+        @Override
+        public File getLocalFile(String fileName) {
+            return null;
+        }
+
+        @Override
+        public InputStream openInputStream(String fileName) throws IOException {
+            return new FilterInputStream(super.openInputStream(fileName)) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n > 0) {
+                        bytesRead.addAndGet(n);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public OutputStream openOutputStream(String fileName) throws IOException {
+            if (fileName.endsWith(IngestPipeline.CHAPTERS_SUFFIX)) {
+                writerWaiting.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            return super.openOutputStream(fileName);
+        }
+    }
+
+    private static final class Result implements IngestPipeline.Callback {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile BookManifest manifest;
+        volatile Exception error;
+
+        @Override
+        public void onComplete(BookManifest manifest) {
+            this.manifest = manifest;
+            done.countDown();
+        }
+
+        @Override
+        public void onError(Exception e) {
+            this.error = e;
+            done.countDown();
+        }
+
+        Result await() throws InterruptedException {
+            assertTrue("Import timed out", done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            return this;
+        }
+    }
+
+    private static String book(int chapters, int paragraphs) {
+        StringBuilder text = new StringBuilder();
+        for (int c = 1; c <= chapters; c++) {
+            text.append("Chapter ").append(c).append("\n\n");
+            for (int p = 0; p < paragraphs; p++) {
+                text.append("Paragraph ").append(p).append(" of chapter ").append(c).append(".\n\n");
+            }
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void parserWaitsForWriterWhenQueueIsFull() throws Exception {
+        GatedStore store = new GatedStore(folder.getRoot());
+        String text = book(20, 2000);
+        store.saveTextFile(text, "big.txt");
+
+        Result result = new Result();
+        pipeline.submit(store, "big.txt", result);
+        assertTrue(store.writerWaiting.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // 写入阶段被阻塞时，解析阶段读满有界队列后停下
+        long read;
+        do {
+            read = store.bytesRead.get();
+            Thread.sleep(200);
+        } while (store.bytesRead.get() != read);
+        assertTrue("Read " + read + " of " + text.length() + " bytes", read < text.length() / 4);
+
+        store.gate.countDown();
+        BookManifest manifest = result.await().manifest;
+        assertNull(result.error);
+        assertEquals(text.length(), store.bytesRead.get());
+        assertEquals(20, manifest.getChapters().size());
+        assertEquals("Chapter 20", manifest.getChapters().get(19).getTitle());
+    }
+
+    @Test
+    public void secondSubmitJoinsRunningImport() throws Exception {
+        GatedStore store = new GatedStore(folder.getRoot());
+        store.saveTextFile(book(2, 3), "book.txt");
+
+        Result first = new Result();
+        Result second = new Result();
+        pipeline.submit(store, "book.txt", first);
+        assertTrue(store.writerWaiting.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        pipeline.submit(store, "book.txt", second);
+        assertTrue(pipeline.isRunning("book.txt"));
+
+        store.gate.countDown();
+        assertNotNull(first.await().manifest);
+        assertSame(first.manifest, second.await().manifest);
+        assertFalse(pipeline.isRunning("book.txt"));
+    }
+
+    @Test
+    public void rejectsImportsBeyondPendingLimit() throws Exception {
+        GatedStore store = new GatedStore(folder.getRoot());
+        for (String name : new String[] {"a.txt", "b.txt", "c.txt"}) {
+            store.saveTextFile(book(1, 1), name);
+        }
+
+        Result running = new Result();
+        Result pending = new Result();
+        Result rejected = new Result();
+        pipeline.submit(store, "a.txt", running);
+        assertTrue(store.writerWaiting.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        pipeline.submit(store, "b.txt", pending);
+        pipeline.submit(store, "c.txt", rejected);
+
+        assertEquals("Too many pending imports", rejected.await().error.getMessage());
+        assertFalse(pipeline.isRunning("c.txt"));
+        store.gate.countDown();
+        assertNull(running.await().error);
+        assertNull(pending.await().error);
+    }
+
+    @Test
+    public void failedImportRemovesOutputs() throws Exception {
+        LocalFileStore store = new LocalFileStore(folder.getRoot());
+        store.saveTextFile("stale", IngestPipeline.chaptersName("doc.pdf"));
+        store.saveTextFile("stale", IngestPipeline.manifestName("doc.pdf"));
+        store.saveTextFile("%PDF-1.4\n", "doc.pdf");
+
+        Result result = new Result();
+        pipeline.submit(store, "doc.pdf", result);
+
+        assertTrue(result.await().error.getMessage().startsWith("Unsupported file format"));
+        assertFalse(store.fileExists(IngestPipeline.chaptersName("doc.pdf")));
+        assertFalse(store.fileExists(IngestPipeline.manifestName("doc.pdf")));
+        assertTrue(store.fileExists("doc.pdf"));
+    }
+
+    @Test
+    public void importsThroughEncryptedStore() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey key = generator.generateKey();
+        EncryptedFileStore store = new EncryptedFileStore(folder.getRoot(), () -> key, 256);
+        store.saveTextFile("第一章 开始\n\n你好。\n\n第二章 结束\n\n再见。\n", "book.txt");
+        assertNull(store.getLocalFile("book.txt"));
+
+        Result result = new Result();
+        pipeline.submit(store, "book.txt", result);
+        BookManifest manifest = result.await().manifest;
+        assertNull(result.error);
+
+        assertEncrypted(manifest.getContent());
+        assertEncrypted(IngestPipeline.manifestName("book.txt"));
+        assertEquals(manifest.toJson(), store.readTextFile(IngestPipeline.manifestName("book.txt")).trim());
+        assertEquals(2, manifest.getChapters().size());
+        BookManifest.Chapter second = manifest.getChapters().get(1);
+        assertEquals("第二章 结束", second.getTitle());
+        byte[] bytes = store.readRange(manifest.getContent(), second.getOffset(), (int) second.getLength());
+        assertEquals(second.getLength(), bytes.length);
+        String content = new String(bytes, StandardCharsets.UTF_8);
+        assertTrue(content, content.contains("再见。"));
+    }
+
+    private void assertEncrypted(String fileName) {
+        // 明文存储拒绝读取加密文件
+        try {
+            new LocalFileStore(folder.getRoot()).readTextFile(fileName);
+            fail(fileName + " was written in plaintext");
+        } catch (IOException expected) {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.english_reader.ingest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TxtParserTest {
+
+    private static List<String> describe(List<TextBlock> blocks) {
+        List<String> result = new ArrayList<>();
+        for (TextBlock block : blocks) {
+            result.add(block.type + ":" + block.text);
+        }
+        return result;
+    }
+
+    private static List<TextBlock> parse(byte[] bytes) throws Exception {
+        List<TextBlock> blocks = new ArrayList<>();
+        new TxtParser().parse(new ByteArrayInputStream(bytes), blocks::add);
+        return blocks;
+    }
+
+    private static List<TextBlock> parse(String text) throws Exception {
+        return parse(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void detectsHeadings() throws Exception {
+        List<TextBlock> blocks = parse("Prologue\n\nOnce.\n\nChapter 1\n\nFirst.\n\n"
+                + "CHAPTER IV. The End\n\nLast.\n\nChapter twenty-one: Late\n\n第一章 开始\n");
+        assertEquals(Arrays.asList(
+                "HEADING:Prologue",
+                "PARAGRAPH:Once.",
+                "HEADING:Chapter 1",
+                "PARAGRAPH:First.",
+                "HEADING:CHAPTER IV. The End",
+                "PARAGRAPH:Last.",
+                "HEADING:Chapter twenty-one: Late",
+                "HEADING:第一章 开始"), describe(blocks));
+    }
+
+    @Test
+    public void ordinaryLinesAreNotHeadings() throws Exception {
+        List<TextBlock> blocks = parse("Chapter and verse were quoted.\n\nThe book was on the table.\n");
+        assertEquals(Arrays.asList(
+                "PARAGRAPH:Chapter and verse were quoted.",
+                "PARAGRAPH:The book was on the table."), describe(blocks));
+    }
+
+    @Test
+    public void splitsParagraphsOnBlankLinesAndIndentation() throws Exception {
+        List<TextBlock> blocks = parse("First line\r\ncontinues here.\r\n\r\nSecond.\n  Indented third.\n\tTabbed fourth.\n");
+        assertEquals(Arrays.asList(
+                "PARAGRAPH:First line continues here.",
+                "PARAGRAPH:Second.",
+                "PARAGRAPH:Indented third.",
+                "PARAGRAPH:Tabbed fourth."), describe(blocks));
+    }
+
+    @Test
+    public void splitsOverlongLines() throws Exception {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 3 * BookParser.MAX_PARAGRAPH_CHARS; i++) {
+            line.append('字');
+        }
+        List<TextBlock> blocks = parse(line.toString());
+        int total = 0;
+        for (TextBlock block : blocks) {
+            assertEquals(TextBlock.Type.PARAGRAPH, block.type);
+            assertTrue(block.text.length() <= 2 * BookParser.MAX_PARAGRAPH_CHARS);
+            total += block.text.replace(" ", "").length();
+        }
+        assertTrue(blocks.size() > 1);
+        assertEquals(line.length(), total);
+    }
+
+    @Test
+    public void readsUtf16WithBom() throws Exception {
+        byte[] text = "Chapter 1\n\nHello.\n".getBytes(StandardCharsets.UTF_16LE);
+        byte[] bytes = new byte[text.length + 2];
+        bytes[0] = (byte) 0xFF;
+        bytes[1] = (byte) 0xFE;
+        System.arraycopy(text, 0, bytes, 2, text.length);
+        assertEquals(Arrays.asList("HEADING:Chapter 1", "PARAGRAPH:Hello."), describe(parse(bytes)));
+    }
+
+    @Test
+    public void fallsBackToGb18030WhenNotUtf8() throws Exception {
+        byte[] bytes = "第一章 开始\n你好".getBytes("GBK");
+        assertEquals(Arrays.asList("HEADING:第一章 开始", "PARAGRAPH:你好"), describe(parse(bytes)));
+    }
+
+    @Test
+    public void readsUtf8WithoutBom() throws Exception {
+        // 文件头在多字节字符中间截断时仍按UTF-8解码
+        StringBuilder text = new StringBuilder("x");
+        while (text.length() < CharsetSniffer.SNIFF_LENGTH) {
+            text.append('你');
+        }
+        List<TextBlock> blocks = parse(text.toString());
+        assertEquals(Arrays.asList("PARAGRAPH:" + text), describe(blocks));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.english_reader.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachePurgerTest {
+    private static final long HOUR = 3600_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ExecutorService workers;
+    private CachePurger purger;
+    private File root;
+
+    @Before
+    public void setUp() {
+        workers = Executors.newFixedThreadPool(2);
+        purger = new CachePurger(workers, 2);
+        root = folder.getRoot();
+    }
+
+    @After
+    public void tearDown() {
+        workers.shutdownNow();
+    }
+
+    private static File file(File dir, String name, int size, long ageMillis) throws Exception {
+        dir.mkdirs();
+        File file = new File(dir, name);
+        Files.write(file.toPath(), new byte[size]);
+        assertTrue(file.setLastModified(System.currentTimeMillis() - ageMillis));
+        return file;
+    }
+
+    @Test
+    public void deleteAllRemovesFilesAndDirectories() throws Exception {
+        File deep = root;
+        for (int i = 0; i < 200; i++) {
+            deep = new File(deep, "d" + i);
+        }
+        for (int i = 0; i < 600; i++) {
+            file(deep, "f" + i, 10, 0);
+        }
+        file(root, "top", 5, 0);
+        new File(root, "empty").mkdirs();
+
+        AtomicLong progress = new AtomicLong();
+        AtomicBoolean backwards = new AtomicBoolean();
+        CachePurger.Result result = purger.purge(Arrays.asList(root, null), CachePurger.Request.all(),
+                (filesDeleted, bytesFreed) -> {
+                    if (filesDeleted < progress.getAndSet(filesDeleted)) {
+                        backwards.set(true);
+                    }
+                });
+
+        assertEquals(601, result.getFilesDeleted());
+        assertEquals(6005, result.getBytesFreed());
+        assertEquals(201, result.getDirectoriesDeleted());
+        assertEquals(0, result.getFailures());
+        assertEquals(601, progress.get());
+        assertFalse(backwards.get());
+        assertTrue(root.isDirectory());
+        assertEquals(0, root.list().length);
+    }
+
+    @Test
+    public void olderThanKeepsFreshFilesAndUnrelatedEmptyDirectories() throws Exception {
+        File old = new File(root, "old");
+        file(new File(old, "nested"), "a", 100, 2 * HOUR);
+        File mixed = new File(root, "mixed");
+        file(mixed, "stale", 100, 2 * HOUR);
+        File fresh = file(mixed, "fresh", 100, 0);
+        File created = new File(root, "created");
+        created.mkdirs();
+
+        CachePurger.Result result = purger.purge(Collections.singletonList(root),
+                CachePurger.Request.olderThan(HOUR), null);
+
+        assertEquals(2, result.getFilesDeleted());
+        assertEquals(200, result.getBytesFreed());
+        assertEquals(2, result.getDirectoriesDeleted());
+        assertEquals(0, result.getFailures());
+        assertFalse(old.exists());
+        assertTrue(fresh.exists());
+        assertTrue(created.isDirectory());
+    }
+
+    @Test
+    public void trimToDeletesOldestFirst() throws Exception {
+        File dir = new File(root, "cache");
+        for (int i = 0; i < 5; i++) {
+            file(dir, "f" + i, 100, (i + 1) * HOUR);
+        }
+
+        CachePurger.Result result = purger.purge(Collections.singletonList(root),
+                CachePurger.Request.trimTo(250), null);
+
+        assertEquals(3, result.getFilesDeleted());
+        assertEquals(300, result.getBytesFreed());
+        String[] remaining = dir.list();
+        Arrays.sort(remaining);
+        assertArrayEquals(new String[] {"f0", "f1"}, remaining);
+    }
+}
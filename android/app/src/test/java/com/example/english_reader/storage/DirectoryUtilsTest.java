@@ -0,0 +1,67 @@
+package com.example.english_reader.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DirectoryUtilsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void file(File dir, String name, int size) throws Exception {
+        dir.mkdirs();
+        Files.write(new File(dir, name).toPath(), new byte[size]);
+    }
+
+    @Test
+    public void deleteDirsCountsAndReportsProgress() throws Exception {
+        File first = folder.newFolder("first");
+        File deep = new File(first, "a/b");
+        for (int i = 0; i < 300; i++) {
+            file(deep, "f" + i, 10);
+        }
+        File second = folder.newFolder("second");
+        file(second, "top", 5);
+        new File(second, "empty").mkdirs();
+        assertEquals(3005, DirectoryUtils.getDirSize(first) + DirectoryUtils.getDirSize(second));
+
+        List<long[]> progress = new ArrayList<>();
+        CachePurger.Result result = DirectoryUtils.deleteDirs(Arrays.asList(first, null, second),
+                (filesDeleted, bytesFreed) -> progress.add(new long[] {filesDeleted, bytesFreed}));
+
+        assertEquals(301, result.getFilesDeleted());
+        assertEquals(3005, result.getBytesFreed());
+        assertEquals(3, result.getDirectoriesDeleted());
+        assertEquals(0, result.getFailures());
+        assertEquals(2, progress.size());
+        assertEquals(256, progress.get(0)[0]);
+        assertEquals(2560, progress.get(0)[1]);
+        assertEquals(301, progress.get(1)[0]);
+        assertEquals(3005, progress.get(1)[1]);
+        assertTrue(first.isDirectory());
+        assertEquals(0, first.list().length);
+        assertEquals(0, second.list().length);
+    }
+
+    @Test
+    public void deleteDirKeepsRoot() throws Exception {
+        File root = folder.newFolder("root");
+        file(new File(root, "sub"), "a", 1);
+
+        assertTrue(DirectoryUtils.deleteDir(root));
+        assertTrue(root.isDirectory());
+        assertEquals(0, root.list().length);
+        assertFalse(DirectoryUtils.deleteDir(new File(root, "missing")));
+    }
+}
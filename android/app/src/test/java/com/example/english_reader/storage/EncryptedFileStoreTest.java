@@ -0,0 +1,207 @@
+package com.example.english_reader.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.SecretKey;
+
+public class EncryptedFileStoreTest {
+    private static final int SEGMENT_SIZE = 64;
+    private static final int CIPHERTEXT_SEGMENT_SIZE = SEGMENT_SIZE + SegmentedCipher.TAG_SIZE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File baseDir;
+    private SecretKey masterKey;
+    private EncryptedFileStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        baseDir = folder.getRoot();
+        masterKey = SegmentedCipherTest.newKey();
+        store = new EncryptedFileStore(baseDir, () -> masterKey, SEGMENT_SIZE);
+    }
+
+    @Test
+    public void roundTripAtSegmentBoundaries() throws Exception {
+        int[] sizes = {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE};
+        for (int size : sizes) {
+            byte[] data = randomBytes(size);
+            write(store, "file.bin", data);
+
+            File file = new File(baseDir, "file.bin");
+            assertTrue(SegmentedCipher.isEncrypted(file));
+            assertArrayEquals("size " + size, data, read(store, "file.bin"));
+            assertEquals("size " + size, size, store.plaintextSize("file.bin"));
+        }
+    }
+
+    @Test
+    public void textRoundTrip() throws Exception {
+        String text = "Chapter 1\n第一章\n";
+        store.saveTextFile(text, "note.txt");
+        assertEquals(text, store.readTextFile("note.txt"));
+    }
+
+    @Test
+    public void readRangeAcrossSegments() throws Exception {
+        byte[] data = randomBytes(3 * SEGMENT_SIZE + 10);
+        write(store, "file.bin", data);
+
+        int[] offsets = {0, 1, SEGMENT_SIZE - 1, SEGMENT_SIZE, SEGMENT_SIZE + 1, 2 * SEGMENT_SIZE - 3};
+        int[] lengths = {0, 1, 2, SEGMENT_SIZE, SEGMENT_SIZE + 2, 2 * SEGMENT_SIZE + 5};
+        for (int offset : offsets) {
+            for (int length : lengths) {
+                int end = Math.min(offset + length, data.length);
+                assertArrayEquals(offset + "+" + length,
+                        Arrays.copyOfRange(data, offset, end), store.readRange("file.bin", offset, length));
+            }
+        }
+        assertEquals(0, store.readRange("file.bin", data.length, 10).length);
+        assertArrayEquals(Arrays.copyOfRange(data, data.length - 4, data.length),
+                store.readRange("file.bin", data.length - 4, 100));
+    }
+
+    @Test
+    public void truncationAtSegmentBoundaryIsDetected() throws Exception {
+        write(store, "file.bin", randomBytes(3 * SEGMENT_SIZE));
+        File file = new File(baseDir, "file.bin");
+        truncate(file, SegmentedCipher.HEADER_SIZE + 2L * CIPHERTEXT_SEGMENT_SIZE);
+
+        assertReadFails("file.bin");
+        try {
+            store.readRange("file.bin", SEGMENT_SIZE, SEGMENT_SIZE);
+            fail("Truncated file read by range");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void truncationToHeaderIsDetected() throws Exception {
+        write(store, "file.bin", randomBytes(SEGMENT_SIZE + 1));
+        truncate(new File(baseDir, "file.bin"), SegmentedCipher.HEADER_SIZE);
+        assertReadFails("file.bin");
+    }
+
+    @Test
+    public void swappedSegmentsAreDetected() throws Exception {
+        write(store, "file.bin", randomBytes(3 * SEGMENT_SIZE + 1));
+        File file = new File(baseDir, "file.bin");
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int first = SegmentedCipher.HEADER_SIZE;
+        int second = first + CIPHERTEXT_SEGMENT_SIZE;
+        byte[] segment = Arrays.copyOfRange(bytes, first, second);
+        System.arraycopy(bytes, second, bytes, first, CIPHERTEXT_SEGMENT_SIZE);
+        System.arraycopy(segment, 0, bytes, second, CIPHERTEXT_SEGMENT_SIZE);
+        Files.write(file.toPath(), bytes);
+
+        assertReadFails("file.bin");
+        try {
+            store.readRange("file.bin", 0, 1);
+            fail("Swapped segment read by range");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void wrongKeyIsRejected() throws Exception {
+        write(store, "file.bin", randomBytes(10));
+        SecretKey otherKey = SegmentedCipherTest.newKey();
+        EncryptedFileStore otherStore = new EncryptedFileStore(baseDir, () -> otherKey, SEGMENT_SIZE);
+        try {
+            read(otherStore, "file.bin");
+            fail("File decrypted with the wrong key");
+        } catch (IOException expected) {
+        }
+        try {
+            otherStore.readRange("file.bin", 0, 10);
+            fail("File decrypted by range with the wrong key");
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void legacyPlaintextFileIsReadable() throws Exception {
+        String text = "legacy note\nsecond line\n";
+        new LocalFileStore(baseDir).saveTextFile(text, "legacy.txt");
+
+        assertEquals(text, store.readTextFile("legacy.txt"));
+        assertArrayEquals("note".getBytes(StandardCharsets.UTF_8), store.readRange("legacy.txt", 7, 4));
+        assertEquals(text.length(), store.plaintextSize("legacy.txt"));
+    }
+
+    @Test
+    public void disabledEncryptionWritesPlaintextAndStillDecrypts() throws Exception {
+        store.saveTextFile("secret\n", "encrypted.txt");
+        store.setEncryptWrites(false);
+        store.saveTextFile("plain\n", "plain.txt");
+
+        assertFalse(SegmentedCipher.isEncrypted(new File(baseDir, "plain.txt")));
+        assertEquals("plain\n", store.readTextFile("plain.txt"));
+        assertEquals("secret\n", store.readTextFile("encrypted.txt"));
+    }
+
+    @Test(expected = IOException.class)
+    public void localStoreRejectsEncryptedFile() throws Exception {
+        store.saveTextFile("secret\n", "encrypted.txt");
+        new LocalFileStore(baseDir).readTextFile("encrypted.txt");
+    }
+
+    private void assertReadFails(String fileName) {
+        try {
+            read(store, fileName);
+            fail("Tampered file read without error");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static void write(FileStore store, String fileName, byte[] data) throws IOException {
+        try (OutputStream os = store.openOutputStream(fileName)) {
+            os.write(data);
+        }
+    }
+
+    private static byte[] read(FileStore store, String fileName) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream is = store.openInputStream(fileName)) {
+            byte[] buffer = new byte[17];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static void truncate(File file, long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+        }
+    }
+}
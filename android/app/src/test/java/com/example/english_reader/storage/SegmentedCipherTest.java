@@ -0,0 +1,94 @@
+package com.example.english_reader.storage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+public class SegmentedCipherTest {
+    private static final int SEGMENT_SIZE = 64;
+
+    private SecretKey masterKey;
+
+    @Before
+    public void setUp() throws Exception {
+        masterKey = newKey();
+    }
+
+    static SecretKey newKey() throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        return keyGenerator.generateKey();
+    }
+
+    @Test
+    public void headerIsRecognized() throws Exception {
+        byte[] header = SegmentedCipher.create(masterKey, SEGMENT_SIZE).getHeader();
+        assertEquals(SegmentedCipher.HEADER_SIZE, header.length);
+        assertTrue(SegmentedCipher.isEncrypted(header));
+        assertFalse(SegmentedCipher.isEncrypted("plain text".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void segmentRoundTrip() throws Exception {
+        SegmentedCipher writer = SegmentedCipher.create(masterKey, SEGMENT_SIZE);
+        byte[] plaintext = "segment".getBytes(StandardCharsets.UTF_8);
+        byte[] ciphertext = new byte[writer.getCiphertextSegmentSize()];
+        int n = writer.encryptSegment(plaintext, plaintext.length, 3, true, ciphertext);
+        assertEquals(plaintext.length + SegmentedCipher.TAG_SIZE, n);
+
+        SegmentedCipher reader = SegmentedCipher.open(masterKey, writer.getHeader());
+        byte[] output = new byte[SEGMENT_SIZE];
+        int length = reader.decryptSegment(ciphertext, n, 3, true, output);
+        assertEquals(plaintext.length, length);
+        byte[] decrypted = new byte[length];
+        System.arraycopy(output, 0, decrypted, 0, length);
+        assertArrayEquals(plaintext, decrypted);
+    }
+
+    @Test
+    public void segmentBoundToIndexAndLastFlag() throws Exception {
+        SegmentedCipher cipher = SegmentedCipher.create(masterKey, SEGMENT_SIZE);
+        byte[] plaintext = new byte[SEGMENT_SIZE];
+        byte[] ciphertext = new byte[cipher.getCiphertextSegmentSize()];
+        int n = cipher.encryptSegment(plaintext, plaintext.length, 1, false, ciphertext);
+        byte[] output = new byte[SEGMENT_SIZE];
+
+        try {
+            cipher.decryptSegment(ciphertext, n, 2, false, output);
+            fail("Segment decrypted at the wrong index");
+        } catch (GeneralSecurityException expected) {
+        }
+        try {
+            cipher.decryptSegment(ciphertext, n, 1, true, output);
+            fail("Segment decrypted with the wrong last flag");
+        } catch (GeneralSecurityException expected) {
+        }
+    }
+
+    @Test(expected = GeneralSecurityException.class)
+    public void wrongMasterKeyCannotOpenHeader() throws Exception {
+        byte[] header = SegmentedCipher.create(masterKey, SEGMENT_SIZE).getHeader();
+        SegmentedCipher.open(newKey(), header);
+    }
+
+    @Test
+    public void plaintextSizeFromFileLength() throws Exception {
+        SegmentedCipher cipher = SegmentedCipher.create(masterKey, SEGMENT_SIZE);
+        long segment = cipher.getCiphertextSegmentSize();
+        long header = SegmentedCipher.HEADER_SIZE;
+        assertEquals(0, cipher.plaintextSize(header + SegmentedCipher.TAG_SIZE));
+        assertEquals(SEGMENT_SIZE, cipher.plaintextSize(header + segment));
+        assertEquals(SEGMENT_SIZE + 1, cipher.plaintextSize(header + segment + 1 + SegmentedCipher.TAG_SIZE));
+    }
+}
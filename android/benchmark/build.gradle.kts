@@ -0,0 +1,52 @@
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+repositories {
+    mavenCentral()
+}
+
+// Same output location as the other android modules, which is already ignored by git.
+layout.buildDirectory = file("../build/benchmark")
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// Only the context-free storage classes are compiled here, so the benchmarks
+// run on a plain JVM without the Android SDK.
+sourceSets {
+    main {
+        java {
+            setSrcDirs(listOf("../app/src/main/java"))
+            include(
+                "com/example/english_reader/storage/FileStore.java",
+                "com/example/english_reader/storage/LocalFileStore.java",
+                "com/example/english_reader/storage/DirectoryUtils.java",
+                "com/example/english_reader/storage/CachePurger.java",
+                "com/example/english_reader/storage/KeySource.java",
+                "com/example/english_reader/storage/SegmentedCipher.java",
+                "com/example/english_reader/storage/EncryptedInputStream.java",
+                "com/example/english_reader/storage/EncryptedOutputStream.java",
+                "com/example/english_reader/storage/EncryptedFileStore.java",
+            )
+        }
+    }
+}
+
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    profilers = listOf("gc")
+    jvmArgs = listOf("-Xms4g", "-Xmx4g")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+}
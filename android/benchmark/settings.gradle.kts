@@ -0,0 +1,2 @@
+// Standalone build, independent of android/settings.gradle.kts (see README.md).
+rootProject.name = "benchmark"
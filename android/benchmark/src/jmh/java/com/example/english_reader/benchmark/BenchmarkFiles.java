@@ -0,0 +1,94 @@
+package com.example.english_reader.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试用的临时文件工具
+ */
+final class BenchmarkFiles {
+    private static final int LINE_LENGTH = 80;
+
+    private BenchmarkFiles() {
+    }
+
+    static File createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix).toFile();
+    }
+
+    /**
+     * 递归删除目录（包括目录本身）
+     */
+    static void deleteRecursively(File dir) throws IOException {
+        if (dir == null || !dir.exists()) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir.toPath())) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * 生成指定字节数的ASCII文本，每行80个字符
+     */
+    static String text(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size);
+        while (builder.length() < size) {
+            if (builder.length() % (LINE_LENGTH + 1) == LINE_LENGTH) {
+                builder.append('\n');
+            } else {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 写入指定字节数的随机二进制文件
+     */
+    static File binaryFile(File dir, String name, long size) throws IOException {
+        File file = new File(dir, name);
+        Random random = new Random(42);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(file.toPath())) {
+            long remaining = size;
+            while (remaining > 0) {
+                random.nextBytes(buffer);
+                int n = (int) Math.min(buffer.length, remaining);
+                out.write(buffer, 0, n);
+                remaining -= n;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 创建包含fileCount个文件的目录树，每个目录最多fanOut个子项
+     */
+    static void tree(File root, int fileCount, int fanOut, int fileSize) throws IOException {
+        if (!root.exists() && !root.mkdirs()) {
+            throw new IOException("Cannot create " + root);
+        }
+        if (fileCount <= fanOut) {
+            byte[] content = new byte[fileSize];
+            for (int i = 0; i < fileCount; i++) {
+                Files.write(new File(root, "page_" + i + ".bin").toPath(), content);
+            }
+            return;
+        }
+        int perChild = (fileCount + fanOut - 1) / fanOut;
+        int remaining = fileCount;
+        for (int i = 0; remaining > 0; i++) {
+            int count = Math.min(perChild, remaining);
+            tree(new File(root, "dir_" + i), count, fanOut, fileSize);
+            remaining -= count;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.english_reader.benchmark;
+
+import com.example.english_reader.storage.LocalFileStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导入文件时的复制循环（copyFileToInternalStorage）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CopyBenchmark {
+
+    /** 1 KB, 64 KB, 1 MB, 16 MB, 200 MB */
+    @Param({"1024", "65536", "1048576", "16777216", "209715200"})
+    public long size;
+
+    private File dir;
+    private File source;
+    private LocalFileStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkFiles.createTempDir("copy-bench");
+        store = new LocalFileStore(new File(dir, "files"));
+        store.getBaseDir().mkdirs();
+        source = BenchmarkFiles.binaryFile(dir, "source.bin", size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public String copy() throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            return store.copyFrom(in, "copy.bin");
+        }
+    }
+}
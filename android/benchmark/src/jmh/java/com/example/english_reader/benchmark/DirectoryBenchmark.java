@@ -0,0 +1,136 @@
+package com.example.english_reader.benchmark;
+
+import com.example.english_reader.storage.CachePurger;
+import com.example.english_reader.storage.DirectoryUtils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getDirSize / deleteDir / CachePurger 在不同文件数量和目录扇出下的耗时
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DirectoryBenchmark {
+    private static final int FILE_SIZE = 1024;
+
+    @State(Scope.Benchmark)
+    public static class SizeState {
+        @Param({"100", "10000", "50000"})
+        public int fileCount;
+
+        /** 每个目录的最大子项数：10为深层树，1000为扁平目录 */
+        @Param({"10", "1000"})
+        public int fanOut;
+
+        File root;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            root = BenchmarkFiles.createTempDir("dir-size-bench");
+            BenchmarkFiles.tree(root, fileCount, fanOut, FILE_SIZE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            BenchmarkFiles.deleteRecursively(root);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DeleteState {
+        @Param({"100", "10000", "50000"})
+        public int fileCount;
+
+        @Param({"10", "1000"})
+        public int fanOut;
+
+        File root;
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            root = BenchmarkFiles.createTempDir("dir-delete-bench");
+            BenchmarkFiles.tree(root, fileCount, fanOut, FILE_SIZE);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            BenchmarkFiles.deleteRecursively(root);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PurgeState {
+        @Param({"100", "10000", "50000"})
+        public int fileCount;
+
+        @Param({"10", "1000"})
+        public int fanOut;
+
+        @Param({"1", "4"})
+        public int threads;
+
+        ExecutorService workers;
+        File root;
+
+        @Setup(Level.Trial)
+        public void startWorkers() {
+            workers = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown(Level.Trial)
+        public void stopWorkers() {
+            workers.shutdownNow();
+        }
+
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            root = BenchmarkFiles.createTempDir("dir-purge-bench");
+            BenchmarkFiles.tree(root, fileCount, fanOut, FILE_SIZE);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() throws IOException {
+            BenchmarkFiles.deleteRecursively(root);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public long getDirSize(SizeState state) {
+        return DirectoryUtils.getDirSize(state.root);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 10, batchSize = 1)
+    public boolean deleteDir(DeleteState state) {
+        return DirectoryUtils.deleteDir(state.root);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 10, batchSize = 1)
+    public CachePurger.Result purge(PurgeState state) throws Exception {
+        return new CachePurger(state.workers, state.threads)
+                .purge(Collections.singletonList(state.root), CachePurger.Request.all(), null);
+    }
+}
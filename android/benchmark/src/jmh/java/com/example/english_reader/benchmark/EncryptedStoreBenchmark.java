@@ -0,0 +1,97 @@
+package com.example.english_reader.benchmark;
+
+import com.example.english_reader.storage.EncryptedFileStore;
+import com.example.english_reader.storage.FileStore;
+import com.example.english_reader.storage.LocalFileStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+
+/**
+ * 明文存储与分段加密存储的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncryptedStoreBenchmark {
+    private static final int RANGE_LENGTH = 4096;
+
+    @Param({"plain", "encrypted"})
+    public String mode;
+
+    /** 1 MB, 16 MB, 200 MB */
+    @Param({"1048576", "16777216", "209715200"})
+    public int size;
+
+    private File dir;
+    private File source;
+    private FileStore store;
+    private String content;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GeneralSecurityException {
+        dir = BenchmarkFiles.createTempDir("encrypted-bench");
+        File filesDir = new File(dir, "files");
+        filesDir.mkdirs();
+        if ("encrypted".equals(mode)) {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+            keyGenerator.init(256);
+            SecretKey key = keyGenerator.generateKey();
+            store = new EncryptedFileStore(filesDir, () -> key);
+        } else {
+            store = new LocalFileStore(filesDir);
+        }
+        content = BenchmarkFiles.text(size);
+        store.saveTextFile(content, "read.txt");
+        source = BenchmarkFiles.binaryFile(dir, "source.bin", size);
+        random = new Random(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public String saveTextFile() throws IOException {
+        return store.saveTextFile(content, "write.txt");
+    }
+
+    @Benchmark
+    public String readTextFile() throws IOException {
+        return store.readTextFile("read.txt");
+    }
+
+    @Benchmark
+    public String copy() throws IOException {
+        try (InputStream in = new FileInputStream(source)) {
+            return store.copyFrom(in, "copy.bin");
+        }
+    }
+
+    @Benchmark
+    public byte[] readRange() throws IOException {
+        long offset = (long) random.nextInt(size - RANGE_LENGTH);
+        return store.readRange("read.txt", offset, RANGE_LENGTH);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.english_reader.benchmark;
+
+import com.example.english_reader.storage.LocalFileStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * saveTextFile / readTextFile 在不同文件大小下的耗时与分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextFileBenchmark {
+
+    /** 1 KB, 64 KB, 1 MB, 16 MB, 200 MB */
+    @Param({"1024", "65536", "1048576", "16777216", "209715200"})
+    public int size;
+
+    private File dir;
+    private LocalFileStore store;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchmarkFiles.createTempDir("text-bench");
+        store = new LocalFileStore(dir);
+        content = BenchmarkFiles.text(size);
+        store.saveTextFile(content, "read.txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public String saveTextFile() throws IOException {
+        return store.saveTextFile(content, "write.txt");
+    }
+
+    @Benchmark
+    public String readTextFile() throws IOException {
+        return store.readTextFile("read.txt");
+    }
+}
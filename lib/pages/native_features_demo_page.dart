@@ -1,6 +1,7 @@
 import 'dart:io';
 import 'package:flutter/material.dart';
 import 'package:english_reader/utils/platform_channel.dart';
+import 'package:english_reader/pages/reader/book_reader_page.dart';
 
 class NativeFeaturesDemoPage extends StatefulWidget {
   const NativeFeaturesDemoPage({super.key});
@@ -19,6 +20,8 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
   bool _hasCameraPermission = false;
   bool _hasStoragePermission = false;
   String _cacheSize = '0 KB';
+  String? _cacheClearProgress;
+  bool _storageEncrypted = false;
   int _progressValue = 0;
 
   @override
@@ -26,6 +29,7 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
     super.initState();
     _checkPermissions();
     _getCacheSize();
+    _getStorageEncryption();
   }
 
   Future<void> _checkPermissions() async {
@@ -45,6 +49,27 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
     });
   }
 
+  Future<void> _getStorageEncryption() async {
+    final enabled = await _platformChannel.isStorageEncryptionEnabled();
+    if (!mounted) return;
+    setState(() {
+      _storageEncrypted = enabled;
+    });
+  }
+
+  Future<void> _setStorageEncryption(bool enabled) async {
+    final success = await _platformChannel.setStorageEncryption(enabled);
+    if (!mounted) return;
+    if (success) {
+      setState(() {
+        _storageEncrypted = enabled;
+      });
+      _showSnackBar(enabled ? '之后保存的笔记和书籍将加密存储' : '之后保存的笔记和书籍将不再加密');
+    } else {
+      _showSnackBar('当前设备不支持加密存储');
+    }
+  }
+
   Future<void> _pickImage() async {
     if (!_hasStoragePermission) {
       final granted = await _platformChannel.requestStoragePermission();
@@ -87,6 +112,23 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
     }
   }
 
+  Future<void> _importBook() async {
+    final filePath = await _platformChannel.pickBookFile();
+    if (filePath == null || !mounted) return;
+    // 选择后原生端已开始在后台导入，阅读页等待导入完成后显示章节
+    final fileName = filePath.split('/').last;
+    Navigator.push(
+      context,
+      MaterialPageRoute(
+        builder: (context) => BookReaderPage(
+          bookId: 0,
+          bookTitle: fileName,
+          importedFileName: fileName,
+        ),
+      ),
+    );
+  }
+
   Future<void> _saveNote() async {
     if (_noteController.text.isEmpty || _fileNameController.text.isEmpty) {
       _showSnackBar('笔记内容和文件名不能为空');
@@ -203,15 +245,36 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
   }
 
   Future<void> _clearCache() async {
-    final success = await _platformChannel.clearCache();
-    if (success) {
-      _showSnackBar('缓存已清除');
+    final result = await _platformChannel.purgeCache(
+      onProgress: (filesDeleted, bytesFreed) {
+        if (!mounted) return;
+        setState(() {
+          _cacheClearProgress =
+              '已删除 $filesDeleted 个文件，释放 ${_formatBytes(bytesFreed)}';
+        });
+      },
+    );
+    if (!mounted) return;
+    setState(() {
+      _cacheClearProgress = null;
+    });
+    if (result != null && result['failures'] == 0) {
+      _showSnackBar(
+        '缓存已清除，释放 ${_formatBytes(result['bytesFreed'] as int)}',
+      );
       _getCacheSize();
     } else {
       _showSnackBar('清除缓存失败');
     }
   }
 
+  String _formatBytes(int bytes) {
+    if (bytes < 1024 * 1024) {
+      return '${(bytes / 1024).toStringAsFixed(1)} KB';
+    }
+    return '${(bytes / (1024 * 1024)).toStringAsFixed(1)} MB';
+  }
+
   void _showSnackBar(String message) {
     ScaffoldMessenger.of(
       context,
@@ -326,6 +389,34 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
             ),
             const SizedBox(height: 16),
 
+            // 书籍导入
+            Card(
+              child: Padding(
+                padding: const EdgeInsets.all(16.0),
+                child: Column(
+                  crossAxisAlignment: CrossAxisAlignment.start,
+                  children: [
+                    const Text(
+                      '书籍导入',
+                      style: TextStyle(
+                        fontSize: 18,
+                        fontWeight: FontWeight.bold,
+                      ),
+                    ),
+                    const SizedBox(height: 8),
+                    const Text('支持TXT、HTML和EPUB文件，导入后按章节阅读'),
+                    const SizedBox(height: 16),
+                    ElevatedButton.icon(
+                      onPressed: _importBook,
+                      icon: const Icon(Icons.upload_file),
+                      label: const Text('导入书籍'),
+                    ),
+                  ],
+                ),
+              ),
+            ),
+            const SizedBox(height: 16),
+
             // 文件操作
             Card(
               child: Padding(
@@ -340,7 +431,14 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
                         fontWeight: FontWeight.bold,
                       ),
                     ),
-                    const SizedBox(height: 16),
+                    SwitchListTile(
+                      contentPadding: EdgeInsets.zero,
+                      title: const Text('加密存储'),
+                      subtitle: const Text('只影响之后保存的文件，已保存的文件仍可读取'),
+                      value: _storageEncrypted,
+                      onChanged: _setStorageEncryption,
+                    ),
+                    const SizedBox(height: 8),
                     TextField(
                       controller: _fileNameController,
                       decoration: const InputDecoration(
@@ -472,6 +570,10 @@ class _NativeFeaturesDemoPageState extends State<NativeFeaturesDemoPage> {
                         ),
                       ],
                     ),
+                    if (_cacheClearProgress != null) ...[
+                      const SizedBox(height: 8),
+                      Text(_cacheClearProgress!),
+                    ],
                   ],
                 ),
               ),
@@ -4,15 +4,20 @@ import 'package:shared_preferences/shared_preferences.dart';
 import 'package:fluttertoast/fluttertoast.dart';
 
 import '../../main.dart';
+import '../../utils/platform_channel.dart';
 
 class BookReaderPage extends StatefulWidget {
   final int bookId;
   final String bookTitle;
 
+  /// 通过原生导入的书籍文件名，为空时使用内置示例内容
+  final String? importedFileName;
+
   const BookReaderPage({
     super.key,
     required this.bookId,
     required this.bookTitle,
+    this.importedFileName,
   });
 
   @override
@@ -25,6 +30,13 @@ class _BookReaderPageState extends State<BookReaderPage> {
   bool _isNightMode = false;
   double _fontSize = 16.0;
 
+  // 导入书籍的章节清单
+  Map<String, dynamic>? _manifest;
+
+  // 导入书籍时的加载状态和错误信息
+  bool _importing = false;
+  String? _importError;
+
   // 模拟章节数据
   final List<String> _chapters = [
     '第一章',
@@ -112,6 +124,13 @@ Mrs. Bennet deigned not to make any reply, but, unable to contain herself, began
     super.initState();
     _loadReaderSettings();
     _loadLastReadPosition();
+    if (widget.importedFileName != null) {
+      // 导入的书籍不显示示例内容
+      _chapters.clear();
+      _chapterContents.clear();
+      _importing = true;
+      _loadImportedBook(widget.importedFileName!);
+    }
 
     // 监听滚动位置，保存阅读进度
     _scrollController.addListener(_saveScrollPosition);
@@ -143,20 +162,24 @@ Mrs. Bennet deigned not to make any reply, but, unable to contain herself, began
   // 加载上次阅读位置
   void _loadLastReadPosition() async {
     final prefs = await SharedPreferences.getInstance();
-    final bookKey = 'book_${widget.bookId}';
+    if (!mounted) return;
     setState(() {
-      _currentChapter = prefs.getInt('${bookKey}_chapter') ?? 0;
+      _currentChapter = prefs.getInt('${_bookKey}_chapter') ?? 0;
+      if (_manifest != null && _currentChapter >= _chapters.length) {
+        _currentChapter = 0;
+      }
 
       // 延迟滚动到上次位置
       Future.delayed(const Duration(milliseconds: 300), () {
         if (_scrollController.hasClients) {
-          final position = prefs.getDouble('${bookKey}_position') ?? 0.0;
+          final position = prefs.getDouble('${_bookKey}_position') ?? 0.0;
           _scrollController.jumpTo(
             position.clamp(0.0, _scrollController.position.maxScrollExtent),
           );
         }
       });
     });
+    _loadChapterContent(_currentChapter);
   }
 
   // 保存滚动位置
@@ -164,13 +187,68 @@ Mrs. Bennet deigned not to make any reply, but, unable to contain herself, began
     if (!_scrollController.hasClients) return;
 
     final prefs = await SharedPreferences.getInstance();
-    final bookKey = 'book_${widget.bookId}';
-    await prefs.setInt('${bookKey}_chapter', _currentChapter);
-    await prefs.setDouble('${bookKey}_position', _scrollController.offset);
+    await prefs.setInt('${_bookKey}_chapter', _currentChapter);
+    await prefs.setDouble('${_bookKey}_position', _scrollController.offset);
+  }
+
+  // 阅读进度的存储键，导入的书籍按文件名区分
+  String get _bookKey => widget.importedFileName != null
+      ? 'imported_${widget.importedFileName}'
+      : 'book_${widget.bookId}';
+
+  // 加载导入书籍的章节清单
+  void _loadImportedBook(String fileName) async {
+    final manifest = await PlatformChannelUtil().importBook(fileName);
+    if (!mounted) return;
+    final List<dynamic>? chapters = manifest?['chapters'] as List<dynamic>?;
+    if (manifest == null || chapters == null || chapters.isEmpty) {
+      final error = manifest == null ? '书籍导入失败' : '书籍中没有可阅读的内容';
+      setState(() {
+        _importing = false;
+        _importError = error;
+      });
+      Fluttertoast.showToast(msg: error, toastLength: Toast.LENGTH_LONG);
+      return;
+    }
+    setState(() {
+      _importing = false;
+      _manifest = manifest;
+      _chapters
+        ..clear()
+        ..addAll(chapters.map((chapter) => chapter['title'] as String));
+      _chapterContents.clear();
+      if (_currentChapter >= _chapters.length) {
+        _currentChapter = 0;
+      }
+    });
+    _loadChapterContent(_currentChapter);
+  }
+
+  // 按需加载导入书籍的章节正文
+  void _loadChapterContent(int chapter) async {
+    final manifest = _manifest;
+    if (manifest == null || _chapterContents.containsKey(chapter)) return;
+    final content = await PlatformChannelUtil().readChapter(manifest, chapter);
+    if (!mounted) return;
+    if (content == null) {
+      Fluttertoast.showToast(msg: '章节读取失败', toastLength: Toast.LENGTH_SHORT);
+      return;
+    }
+    setState(() {
+      _chapterContents[chapter] = content;
+    });
+  }
+
+  // 阅读区域显示的文本
+  String get _readingText {
+    if (_importing) return '正在导入书籍...';
+    if (_importError != null) return _importError!;
+    return _chapterContents[_currentChapter] ?? '本章内容加载中...';
   }
 
   // 切换章节
   void _changeChapter(int chapter) {
+    _loadChapterContent(chapter);
     setState(() {
       _currentChapter = chapter;
       // 重置滚动位置
@@ -351,6 +429,7 @@ Mrs. Bennet deigned not to make any reply, but, unable to contain herself, began
                             context,
                           ).colorScheme.primary.withOpacity(0.1)),
                     onTap: () => setState(() {
+                      _loadChapterContent(index);
                       _currentChapter = index;
                       // 重置滚动位置
                       Future.delayed(const Duration(milliseconds: 100), () {
@@ -379,7 +458,7 @@ Mrs. Bennet deigned not to make any reply, but, unable to contain herself, began
                   controller: _scrollController,
                   padding: const EdgeInsets.all(16.0),
                   child: Text(
-                    _chapterContents[_currentChapter] ?? '本章内容加载中...',
+                    _readingText,
                     style: TextStyle(
                       fontSize: _fontSize,
                       height: 1.5,
@@ -1,4 +1,6 @@
 import 'dart:async';
+import 'dart:convert';
+import 'dart:typed_data';
 import 'package:flutter/services.dart';
 
 /// 平台通道工具类，用于Flutter与Java原生功能的通信
@@ -14,7 +16,25 @@ class PlatformChannelUtil {
     return _instance;
   }
 
-  PlatformChannelUtil._internal();
+  PlatformChannelUtil._internal() {
+    _channel.setMethodCallHandler(_handleNativeCall);
+  }
+
+  /// 缓存清理进度回调
+  void Function(int filesDeleted, int bytesFreed)? _cacheClearProgressHandler;
+
+  /// 处理原生端主动发来的调用
+  Future<dynamic> _handleNativeCall(MethodCall call) async {
+    switch (call.method) {
+      case 'onCacheClearProgress':
+        final Map<dynamic, dynamic> args = call.arguments as Map;
+        _cacheClearProgressHandler?.call(
+          args['filesDeleted'] as int,
+          args['bytesFreed'] as int,
+        );
+        break;
+    }
+  }
 
   /// 从相册选择图片
   Future<String?> pickImage() async {
@@ -27,6 +47,17 @@ class PlatformChannelUtil {
     }
   }
 
+  /// 选择要导入的书籍文件（TXT/HTML/EPUB），返回复制到应用目录后的路径
+  Future<String?> pickBookFile() async {
+    try {
+      final String? result = await _channel.invokeMethod('pickFile');
+      return result;
+    } on PlatformException catch (e) {
+      print('Failed to pick file: ${e.message}');
+      return null;
+    }
+  }
+
   /// 拍照获取图片
   Future<String?> takePhoto() async {
     try {
@@ -68,6 +99,88 @@ class PlatformChannelUtil {
     }
   }
 
+  /// 读取文件中指定范围的字节
+  Future<Uint8List?> readFileRange(
+    String fileName,
+    int offset,
+    int length,
+  ) async {
+    try {
+      final Map<String, dynamic> args = {
+        'fileName': fileName,
+        'offset': offset,
+        'length': length,
+      };
+      final Uint8List? result = await _channel.invokeMethod(
+        'readFileRange',
+        args,
+      );
+      return result;
+    } on PlatformException catch (e) {
+      print('Failed to read file range: ${e.message}');
+      return null;
+    }
+  }
+
+  /// 开启或关闭加密存储
+  Future<bool> setStorageEncryption(bool enabled) async {
+    try {
+      final Map<String, dynamic> args = {'enabled': enabled};
+      final bool result = await _channel.invokeMethod(
+        'setStorageEncryption',
+        args,
+      );
+      return result;
+    } on PlatformException catch (e) {
+      print('Failed to set storage encryption: ${e.message}');
+      return false;
+    }
+  }
+
+  /// 是否开启了加密存储
+  Future<bool> isStorageEncryptionEnabled() async {
+    try {
+      final bool result = await _channel.invokeMethod(
+        'isStorageEncryptionEnabled',
+      );
+      return result;
+    } on PlatformException catch (e) {
+      print('Failed to get storage encryption: ${e.message}');
+      return false;
+    }
+  }
+
+  /// 导入书籍，返回章节清单（标题、章节偏移和长度）
+  Future<Map<String, dynamic>?> importBook(String fileName) async {
+    try {
+      final Map<String, dynamic> args = {'fileName': fileName};
+      final String? result = await _channel.invokeMethod('importBook', args);
+      if (result == null) return null;
+      return jsonDecode(result) as Map<String, dynamic>;
+    } on PlatformException catch (e) {
+      print('Failed to import book: ${e.message}');
+      return null;
+    }
+  }
+
+  /// 根据章节清单读取一章正文
+  Future<String?> readChapter(
+    Map<String, dynamic> manifest,
+    int chapterIndex,
+  ) async {
+    final List<dynamic> chapters = manifest['chapters'] as List<dynamic>;
+    if (chapterIndex < 0 || chapterIndex >= chapters.length) return null;
+    final Map<String, dynamic> chapter =
+        chapters[chapterIndex] as Map<String, dynamic>;
+    final Uint8List? bytes = await readFileRange(
+      manifest['content'] as String,
+      chapter['offset'] as int,
+      chapter['length'] as int,
+    );
+    if (bytes == null) return null;
+    return utf8.decode(bytes, allowMalformed: true).trimRight();
+  }
+
   /// 检查文件是否存在
   Future<bool> fileExists(String fileName) async {
     try {
@@ -201,12 +314,33 @@ class PlatformChannelUtil {
 
   /// 清除缓存
   Future<bool> clearCache() async {
+    final result = await purgeCache();
+    return result != null && result['failures'] == 0;
+  }
+
+  /// 在后台清理缓存，可只清除早于[maxAge]的文件，或从最旧的文件开始清理到不超过[maxSizeBytes]。
+  /// 返回清理结果：filesDeleted、directoriesDeleted、bytesFreed（实际释放的字节数）和failures
+  Future<Map<String, dynamic>?> purgeCache({
+    Duration? maxAge,
+    int? maxSizeBytes,
+    void Function(int filesDeleted, int bytesFreed)? onProgress,
+  }) async {
+    _cacheClearProgressHandler = onProgress;
     try {
-      final bool result = await _channel.invokeMethod('clearCache');
-      return result;
+      final Map<String, dynamic> args = {
+        if (maxAge != null) 'maxAgeMillis': maxAge.inMilliseconds,
+        if (maxSizeBytes != null) 'maxSizeBytes': maxSizeBytes,
+      };
+      final Map<dynamic, dynamic>? result = await _channel.invokeMethod(
+        'clearCache',
+        args,
+      );
+      return result?.cast<String, dynamic>();
     } on PlatformException catch (e) {
       print('Failed to clear cache: ${e.message}');
-      return false;
+      return null;
+    } finally {
+      _cacheClearProgressHandler = null;
     }
   }
 }